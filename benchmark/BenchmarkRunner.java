@@ -0,0 +1,32 @@
+package account.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the account service benchmarks with the GC profiler, so every result reports
+ * allocation rate (gc.alloc.rate.norm, bytes per operation) next to throughput.
+ *
+ * <p>Usage: {@code BenchmarkRunner [includeRegex] [resultFile]}, e.g. {@code BenchmarkRunner Payment results.json}
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : "account\\.benchmark\\..*Benchmark";
+
+        OptionsBuilder options = new OptionsBuilder();
+        options.include(include)
+                .addProfiler(GCProfiler.class)
+                .shouldFailOnError(true);
+
+        // Machine readable results can be compared between runs to catch regressions
+        if (args.length > 1) {
+            options.result(args[1]).resultFormat(ResultFormatType.JSON);
+        }
+
+        new Runner(options.build()).run();
+    }
+}
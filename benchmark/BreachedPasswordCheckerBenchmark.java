@@ -0,0 +1,87 @@
+package account.benchmark;
+
+import account.service.util.BreachedPasswordChecker;
+import account.service.util.BreachedPasswordIndexCompiler;
+import account.service.util.InMemoryBreachedPasswordIndex;
+import account.service.util.MappedBreachedPasswordIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Breached password lookups for both index implementations across list sizes
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BreachedPasswordCheckerBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int listSize;
+
+    @Param({"memory", "mapped"})
+    private String index;
+
+    private BreachedPasswordChecker checker;
+    private Path workDir;
+
+    private String breachedPassword;
+    private String safePassword;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<String> passwords = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            passwords.add("PasswordFor" + i + "Breach");
+        }
+        breachedPassword = passwords.get(listSize / 2);
+        safePassword = "NeverLeakedPassword42";
+
+        if (index.equals("memory")) {
+            Set<String> set = new HashSet<>(passwords);
+            checker = new BreachedPasswordChecker(new InMemoryBreachedPasswordIndex(set));
+            return;
+        }
+
+        workDir = Files.createTempDirectory("breached-passwords");
+        Path input = workDir.resolve("passwords.txt");
+        Path artifact = workDir.resolve("passwords.idx");
+        Files.write(input, passwords, StandardCharsets.UTF_8);
+        BreachedPasswordIndexCompiler.compile(input, artifact, 0.01);
+
+        checker = new BreachedPasswordChecker(MappedBreachedPasswordIndex.open(artifact));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (workDir == null) {
+            return;
+        }
+        try (var files = Files.list(workDir)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(workDir);
+    }
+
+    @Benchmark
+    public boolean breachedPassword() {
+        return checker.isPasswordBreached(breachedPassword);
+    }
+
+    // Most passwords are not breached, for the mapped index this is mostly answered by the Bloom filter
+    @Benchmark
+    public boolean safePassword() {
+        return checker.isPasswordBreached(safePassword);
+    }
+}
@@ -0,0 +1,57 @@
+package account.benchmark;
+
+import account.service.util.BusinessFunctionalityUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Formatting and validation helpers called for every payment read or uploaded
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BusinessFunctionalityUtilBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    private final String[] periods = new String[SAMPLES];
+    private final String[] invalidPeriods = new String[SAMPLES];
+    private final long[] salaries = new long[SAMPLES];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < SAMPLES; i++) {
+            periods[i] = String.format("%02d-%04d", i % 12 + 1, 2000 + i % 30);
+            invalidPeriods[i] = String.format("%02d-%04d", 13 + i % 87, 2000 + i % 30);
+            salaries[i] = 100_000L + i * 1_337L;
+        }
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (SAMPLES - 1);
+        return next;
+    }
+
+    @Benchmark
+    public String convertPeriodToMonthName() {
+        return BusinessFunctionalityUtil.convertPeriodToMonthName(periods[nextIndex()]);
+    }
+
+    @Benchmark
+    public String convertSalaryToString() {
+        return BusinessFunctionalityUtil.convertSalaryToString(salaries[nextIndex()]);
+    }
+
+    @Benchmark
+    public boolean isInvalidDateValid() {
+        return BusinessFunctionalityUtil.isInvalidDate(periods[nextIndex()]);
+    }
+
+    @Benchmark
+    public boolean isInvalidDateInvalid() {
+        return BusinessFunctionalityUtil.isInvalidDate(invalidPeriods[nextIndex()]);
+    }
+}
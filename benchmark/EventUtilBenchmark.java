@@ -0,0 +1,51 @@
+package account.benchmark;
+
+import account.event.util.EventUtil;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Helpers on the authentication failure and access denied paths
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventUtilBenchmark {
+
+    private String authHeader;
+    private Map<String, Object> body;
+
+    @Setup
+    public void setUp() {
+        String credentials = "johndoe@acme.com:VeryLongPassword123";
+        authHeader = "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+
+        body = new LinkedHashMap<>();
+        body.put("timestamp", System.currentTimeMillis());
+        body.put("status", 401);
+        body.put("error", "Unauthorized");
+        body.put("message", "User account is locked");
+        body.put("path", "/api/empl/payment");
+    }
+
+    @Benchmark
+    public String getEmailFromAuthHeader() {
+        return EventUtil.getEmailFromAuthHeader(authHeader);
+    }
+
+    // Includes creating the mock response, which is the same for every invocation
+    @Benchmark
+    public String mapAndSendResponse() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        EventUtil.mapAndSendResponse(body, response);
+        return response.getContentAsString();
+    }
+}
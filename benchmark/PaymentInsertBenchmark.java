@@ -0,0 +1,122 @@
+package account.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import static account.repository.SequenceIdAllocator.ALLOCATION_SIZE;
+
+// Insert of a 100k-row payroll upload as issued by Hibernate before and after moving Payments
+// from an IDENTITY column to a pooled sequence, replayed with plain JDBC against in-memory H2:
+// - identity: one INSERT round trip per row, reading back the generated key
+// - sequence: one sequence call per ALLOCATION_SIZE rows and inserts sent in JDBC batches
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PaymentInsertBenchmark {
+
+    @Param({"100000"})
+    private int rows;
+
+    @Param({"identity", "sequence"})
+    private String idGeneration;
+
+    @Param({"50"})
+    private int batchSize;
+
+    private Connection connection;
+
+    @Setup(Level.Trial)
+    public void open() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:insert-benchmark;DB_CLOSE_DELAY=-1");
+        connection.setAutoCommit(false);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void createTable() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS payments");
+            statement.execute("DROP SEQUENCE IF EXISTS payments_seq");
+            if (idGeneration.equals("identity")) {
+                statement.execute("CREATE TABLE payments (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                        "user_id BIGINT NOT NULL, period INTEGER, salary BIGINT NOT NULL)");
+            } else {
+                statement.execute("CREATE SEQUENCE payments_seq START WITH 1 INCREMENT BY " + ALLOCATION_SIZE);
+                statement.execute("CREATE TABLE payments (id BIGINT PRIMARY KEY, " +
+                        "user_id BIGINT NOT NULL, period INTEGER, salary BIGINT NOT NULL)");
+            }
+            statement.execute("ALTER TABLE payments ADD CONSTRAINT uk_payments_user_period UNIQUE (user_id, period)");
+        }
+        connection.commit();
+    }
+
+    @Benchmark
+    public long upload() throws SQLException {
+        long inserted = idGeneration.equals("identity") ? insertWithIdentity() : insertWithSequence();
+        connection.commit();
+        return inserted;
+    }
+
+    private long insertWithIdentity() throws SQLException {
+        long lastId = 0;
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO payments (user_id, period, salary) VALUES (?, ?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < rows; i++) {
+                bind(insert, 1, i);
+                insert.executeUpdate();
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    keys.next();
+                    lastId = keys.getLong(1);
+                }
+            }
+        }
+        return lastId;
+    }
+
+    private long insertWithSequence() throws SQLException {
+        long nextId = 1;
+        long hi = 0;
+        try (PreparedStatement sequence = connection.prepareStatement("SELECT NEXT VALUE FOR payments_seq");
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO payments (id, user_id, period, salary) VALUES (?, ?, ?, ?)")) {
+            for (int i = 0; i < rows; i++) {
+                if (nextId > hi) {
+                    try (ResultSet value = sequence.executeQuery()) {
+                        value.next();
+                        hi = value.getLong(1);
+                        nextId = Math.max(1, hi - ALLOCATION_SIZE + 1);
+                    }
+                }
+                insert.setLong(1, nextId++);
+                bind(insert, 2, i);
+                insert.addBatch();
+
+                if ((i + 1) % batchSize == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        return nextId - 1;
+    }
+
+    private static void bind(PreparedStatement insert, int firstIndex, int row) throws SQLException {
+        insert.setLong(firstIndex, row % 10_000 + 1);
+        insert.setInt(firstIndex + 1, (2000 + row / 10_000 / 12) * 100 + row / 10_000 % 12 + 1);
+        insert.setLong(firstIndex + 2, 100_000L + row);
+    }
+}
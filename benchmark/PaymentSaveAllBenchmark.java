@@ -0,0 +1,113 @@
+package account.benchmark;
+
+import account.config.PersistenceConfig;
+import account.model.AppUser;
+import account.model.Payments;
+import account.model.Role;
+import account.repository.PaymentsRepository;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Insert of a 100k-row payroll upload through the production path: PaymentsRepository.saveAll on the
+// real Payments mapping, with the Hibernate settings of PersistenceConfig, against in-memory H2.
+// After every iteration the number of statements Hibernate prepared is checked, so a mapping or
+// setting that silently turns off JDBC batching fails the benchmark instead of only slowing it down.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PaymentSaveAllBenchmark {
+
+    private static final int EMPLOYEES = 10_000;
+
+    @Param({"100000"})
+    private int rows;
+
+    @Param({"50"})
+    private int batchSize;
+
+    private SessionFactory sessionFactory;
+    private List<Payments> payments;
+
+    @Setup(Level.Trial)
+    public void open() {
+        Map<String, Object> settings = new HashMap<>();
+        new PersistenceConfig().batchingHibernatePropertiesCustomizer(batchSize).customize(settings);
+
+        Configuration configuration = new Configuration()
+                .addAnnotatedClass(Role.class)
+                .addAnnotatedClass(AppUser.class)
+                .addAnnotatedClass(Payments.class)
+                .setPhysicalNamingStrategy(new CamelCaseToUnderscoresNamingStrategy())
+                .setProperty(AvailableSettings.JAKARTA_JDBC_URL, "jdbc:h2:mem:save-all-benchmark;DB_CLOSE_DELAY=-1")
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .setProperty(AvailableSettings.GENERATE_STATISTICS, "true");
+        configuration.getProperties().putAll(settings);
+        sessionFactory = configuration.buildSessionFactory();
+
+        // Payments reference their employee through fk_payments_user
+        sessionFactory.inTransaction(session -> session.createNativeMutationQuery(
+                        "INSERT INTO app_user (id, name, lastname, email, password, blocked) " +
+                        "SELECT x, 'Name', 'Lastname', CONCAT('employee', x, '@acme.com'), 'password', FALSE " +
+                        "FROM SYSTEM_RANGE(1, :employees)")
+                .setParameter("employees", EMPLOYEES)
+                .executeUpdate());
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        sessionFactory.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void prepare() {
+        sessionFactory.inTransaction(session ->
+                session.createNativeMutationQuery("DELETE FROM payments").executeUpdate());
+
+        // Entities as uploadPayments passes them to saveAll, with user ids already resolved
+        payments = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            int period = i / EMPLOYEES;
+            Payments payment = new Payments("employee" + (i % EMPLOYEES + 1) + "@acme.com",
+                    String.format("%02d-%d", period % 12 + 1, 2000 + period / 12), 100_000L + i);
+            payment.setUserId(i % EMPLOYEES + 1);
+            payments.add(payment);
+        }
+
+        sessionFactory.getStatistics().clear();
+    }
+
+    @TearDown(Level.Iteration)
+    public void checkBatching() {
+        // Batched inserts prepare one statement per batch, unbatched inserts one per row
+        long statements = sessionFactory.getStatistics().getPrepareStatementCount();
+        if (statements > rows / 10) {
+            throw new IllegalStateException("saveAll prepared " + statements + " statements for " + rows +
+                    " payments, inserts are not batched");
+        }
+    }
+
+    @Benchmark
+    public int saveAll() {
+        try (Session session = sessionFactory.openSession()) {
+            session.getTransaction().begin();
+            PaymentsRepository repository = new JpaRepositoryFactory(session).getRepository(PaymentsRepository.class);
+            int saved = repository.saveAll(payments).size();
+            session.getTransaction().commit();
+            return saved;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package account.benchmark;
+
+import account.model.Payments;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static account.service.util.BusinessFunctionalityUtil.*;
+
+// Validation of BusinessFunctionalityService.uploadPayments over synthetic batches, calling the same
+// BusinessFunctionalityUtil methods with the database lookups replaced by prepared maps and sets
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaymentValidationBenchmark {
+
+    @Param({"1000", "100000"})
+    private int batchSize;
+
+    // Percentage of rows failing validation
+    @Param({"0", "10"})
+    private int invalidPercent;
+
+    private List<Payments> payments;
+    private Map<String, Long> userIds;
+    private Set<Long> existingPayments;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        payments = new ArrayList<>(batchSize);
+        userIds = new HashMap<>();
+        existingPayments = new HashSet<>();
+
+        int employees = Math.max(1, batchSize / 12);
+        for (int i = 0; i < employees; i++) {
+            userIds.put("employee" + i + "@acme.com", i + 1L);
+        }
+
+        for (int i = 0; i < batchSize; i++) {
+            String employee = "employee" + (i % employees) + "@acme.com";
+            String period = String.format("%02d-%04d", i / employees % 12 + 1, 2000 + i / employees / 12);
+            long salary = 100_000L + i;
+
+            // Spread invalid rows evenly, cycling through the kinds of errors
+            if (i % 100 < invalidPercent) {
+                switch (i % 3) {
+                    case 0 -> salary = -salary;
+                    case 1 -> period = "13-2000";
+                    default -> employee = "unknown" + i + "@acme.com";
+                }
+            }
+            payments.add(new Payments(employee, period, salary));
+        }
+    }
+
+    @Benchmark
+    public String validateBatch() {
+        assignUserIds(payments, userIds);
+        return validatePayments(payments, existingPayments);
+    }
+}
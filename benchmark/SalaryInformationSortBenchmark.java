@@ -0,0 +1,45 @@
+package account.benchmark;
+
+import account.model.DTO.SalaryInformationDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static account.service.util.BusinessFunctionalityUtil.*;
+
+// Sorting payment history in descending period order, from a year of payments to a long career
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SalaryInformationSortBenchmark {
+
+    @Param({"12", "120", "10000"})
+    private int size;
+
+    private List<SalaryInformationDTO> shuffled;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        shuffled = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int periodKey = (1900 + i / 12) * 100 + i % 12 + 1;
+            shuffled.add(new SalaryInformationDTO("John", "Doe", periodKey,
+                    convertPeriodKeyToMonthName(periodKey), convertSalaryToString(100_000L + i)));
+        }
+        Collections.shuffle(shuffled, new Random(42));
+    }
+
+    @Benchmark
+    public List<SalaryInformationDTO> sortShuffled() {
+        List<SalaryInformationDTO> list = new ArrayList<>(shuffled);
+        Collections.sort(list);
+        return list;
+    }
+}
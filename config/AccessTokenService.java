@@ -0,0 +1,135 @@
+package account.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Issues and validates compact HMAC signed access tokens.
+ * A token has the form {@code base64url(payload) + "." + base64url(signature)}, where the payload is
+ * {@code expiry|version|roles|email}. Validation needs neither the database nor BCrypt.
+ * Tokens are signed with a key generated per process, so a restart revokes all of them.
+ */
+@Component
+public class AccessTokenService {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec signingKey;
+    private final Duration ttl;
+    private final TokenVersionRegistry versionRegistry;
+
+    public AccessTokenService(@Value("${account.auth.token.ttl:PT15M}") Duration ttl,
+                              TokenVersionRegistry versionRegistry) {
+        byte[] keyBytes = new byte[32];
+        new SecureRandom().nextBytes(keyBytes);
+        this.signingKey = new SecretKeySpec(keyBytes, HMAC_ALGORITHM);
+        this.ttl = ttl;
+        this.versionRegistry = versionRegistry;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    /**
+     * Issues a token for an already authenticated user.
+     *
+     * @param auth the authentication obtained from HTTP Basic credentials
+     * @return the signed token
+     */
+    public String issue(Authentication auth) {
+        String email = auth.getName();
+        long expiresAt = Instant.now().plus(ttl).getEpochSecond();
+        String roles = auth.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.joining(","));
+
+        String payload = expiresAt + "|" + versionRegistry.current(email) + "|" + roles + "|" + email;
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+
+        return ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(sign(payloadBytes));
+    }
+
+    /**
+     * Validates a token and converts it to an authentication.
+     *
+     * @param token the token taken from the Authorization header
+     * @return the authentication, or null if the token is malformed, forged, expired or revoked
+     */
+    public Authentication authenticate(String token) {
+        int separator = token.indexOf('.');
+        if (separator <= 0) {
+            return null;
+        }
+
+        byte[] payloadBytes;
+        byte[] signature;
+        try {
+            payloadBytes = DECODER.decode(token.substring(0, separator));
+            signature = DECODER.decode(token.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        // Constant-time comparison of signatures
+        if (!MessageDigest.isEqual(sign(payloadBytes), signature)) {
+            return null;
+        }
+
+        String[] fields = new String(payloadBytes, StandardCharsets.UTF_8).split("\\|", 4);
+        if (fields.length != 4) {
+            return null;
+        }
+
+        long expiresAt;
+        long version;
+        try {
+            expiresAt = Long.parseLong(fields[0]);
+            version = Long.parseLong(fields[1]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        String email = fields[3];
+
+        // Reject expired tokens and tokens issued before the user was locked or had roles changed
+        if (Instant.now().getEpochSecond() >= expiresAt || version != versionRegistry.current(email)) {
+            return null;
+        }
+
+        List<GrantedAuthority> authorities = fields[2].isEmpty() ? List.of() : Arrays.stream(fields[2].split(","))
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toList());
+
+        return UsernamePasswordAuthenticationToken.authenticated(email, null, authorities);
+    }
+
+    private byte[] sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC is not available", e);
+        }
+    }
+}
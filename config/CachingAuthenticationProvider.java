@@ -0,0 +1,66 @@
+package account.config;
+
+import account.event.LoginAttemptTracker;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Authentication provider that puts a {@link VerifiedCredentialCache} in front of the
+ * regular user lookup and BCrypt verification. Only successful verifications are cached,
+ * so wrong passwords always pay the full BCrypt cost.
+ * Every successful login clears the failed login counter of the user.
+ * Registered as a bean, which makes it the provider of the global authentication manager.
+ */
+@Component
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private final DaoAuthenticationProvider delegate;
+    private final VerifiedCredentialCache cache;
+    private final LoginAttemptTracker attemptTracker;
+
+    public CachingAuthenticationProvider(UserDetailsServiceImpl userDetailsService, PasswordEncoder encoder,
+                                         VerifiedCredentialCache cache, LoginAttemptTracker attemptTracker) {
+        this.delegate = new DaoAuthenticationProvider();
+        this.delegate.setUserDetailsService(userDetailsService);
+        this.delegate.setPasswordEncoder(encoder);
+        this.cache = cache;
+        this.attemptTracker = attemptTracker;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        Object credentials = authentication.getCredentials();
+        if (credentials == null) {
+            return succeeded(delegate.authenticate(authentication));
+        }
+
+        // Serve previously verified credentials without touching the database or BCrypt
+        String key = cache.keyFor(authentication.getName(), credentials.toString());
+        Authentication cached = cache.get(key);
+        if (cached != null) {
+            return succeeded(cached);
+        }
+
+        // Read before the lookup, a user evicted while BCrypt runs must not be cached afterwards
+        long generation = cache.generation(authentication.getName());
+        Authentication result = delegate.authenticate(authentication);
+        cache.put(key, result, generation);
+        return succeeded(result);
+    }
+
+    // Failures only count towards a lock while they are consecutive
+    private Authentication succeeded(Authentication result) {
+        attemptTracker.reset(result.getName());
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+}
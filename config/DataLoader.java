@@ -12,15 +12,18 @@ import org.springframework.stereotype.Component;
 public class DataLoader {
 
     private final RoleRepository roleRepository;
+    private final RoleRegistry roleRegistry;
 
     // Populate Role table with available roles at the start of application
+    // and keep them in the registry, so roles are never queried afterwards
     @PostConstruct
     public void init() {
         if (roleRepository.count() == 0) {
-            roleRepository.save(new Role("ROLE_USER"));
-            roleRepository.save(new Role("ROLE_ADMINISTRATOR"));
-            roleRepository.save(new Role("ROLE_ACCOUNTANT"));
-            roleRepository.save(new Role("ROLE_AUDITOR"));
+            roleRepository.save(new Role(RoleRegistry.ROLE_USER));
+            roleRepository.save(new Role(RoleRegistry.ROLE_ADMINISTRATOR));
+            roleRepository.save(new Role(RoleRegistry.ROLE_ACCOUNTANT));
+            roleRepository.save(new Role(RoleRegistry.ROLE_AUDITOR));
         }
+        roleRegistry.load(roleRepository.findAll());
     }
 }
@@ -0,0 +1,128 @@
+package account.config;
+
+import account.event.AuditLogWriter;
+import account.service.PaymentResponseCache;
+import account.service.PaymentUploadJobService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics of the account service, scraped through the Prometheus actuator endpoint.
+ * Latencies are published as histogram buckets, so percentiles are computed by Prometheus per endpoint
+ * and across instances instead of being maintained in the application.
+ * Counters kept by caches and the audit writer are read only when metrics are scraped.
+ */
+@Configuration
+public class MetricsConfig {
+
+    // Timers published as histograms, keyed by meter name prefix
+    private static final List<String> HISTOGRAM_PREFIXES = List.of(
+            "http.server.requests",
+            "account.password.",
+            "account.payments.upload.",
+            "account.audit.");
+
+    /**
+     * Enables histogram buckets for request, hashing, upload and audit meters, bounded to the expected
+     * range of values to keep the number of published buckets low.
+     *
+     * @return filter configuring the distribution statistics
+     */
+    @Bean
+    public MeterFilter histogramMeterFilter() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (HISTOGRAM_PREFIXES.stream().noneMatch(id.getName()::startsWith)) {
+                    return config;
+                }
+
+                DistributionStatisticConfig.Builder histogram = DistributionStatisticConfig.builder()
+                        .percentilesHistogram(true);
+                if (id.getType() == Meter.Type.TIMER) {
+                    histogram.minimumExpectedValue((double) Duration.ofMillis(1).toNanos())
+                            .maximumExpectedValue((double) Duration.ofSeconds(30).toNanos());
+                }
+                return histogram.build().merge(config);
+            }
+        };
+    }
+
+    /**
+     * Hit and miss counters of the user snapshot, verified credential and payment response caches.
+     *
+     * @return binder registering the cache meters
+     */
+    @Bean
+    public MeterBinder cacheMetrics(UserDetailsCache userCache, VerifiedCredentialCache credentialCache,
+                                    PaymentResponseCache paymentResponseCache) {
+        return registry -> {
+            FunctionCounter.builder("account.user.cache.requests", userCache, UserDetailsCache::getHitCount)
+                    .tag("result", "hit").register(registry);
+            FunctionCounter.builder("account.user.cache.requests", userCache, UserDetailsCache::getMissCount)
+                    .tag("result", "miss").register(registry);
+            Gauge.builder("account.user.cache.size", userCache, UserDetailsCache::size).register(registry);
+
+            FunctionCounter.builder("account.credential.cache.requests", credentialCache, VerifiedCredentialCache::getHitCount)
+                    .tag("result", "hit").register(registry);
+            FunctionCounter.builder("account.credential.cache.requests", credentialCache, VerifiedCredentialCache::getMissCount)
+                    .tag("result", "miss").register(registry);
+            FunctionCounter.builder("account.credential.cache.evictions", credentialCache, VerifiedCredentialCache::getEvictionCount)
+                    .register(registry);
+            Gauge.builder("account.credential.cache.size", credentialCache, VerifiedCredentialCache::size).register(registry);
+
+            FunctionCounter.builder("account.payments.response.cache.requests", paymentResponseCache, PaymentResponseCache::getHitCount)
+                    .tag("result", "hit").register(registry);
+            FunctionCounter.builder("account.payments.response.cache.requests", paymentResponseCache, PaymentResponseCache::getMissCount)
+                    .tag("result", "miss").register(registry);
+            Gauge.builder("account.payments.response.cache.size", paymentResponseCache, PaymentResponseCache::size).register(registry);
+        };
+    }
+
+    /**
+     * Queue, flush and loss meters of the batching audit log writer.
+     *
+     * @return binder registering the audit writer meters
+     */
+    @Bean
+    public MeterBinder auditLogWriterMetrics(AuditLogWriter writer) {
+        return registry -> {
+            Gauge.builder("account.audit.queue.depth", writer, AuditLogWriter::getQueueDepth).register(registry);
+            Gauge.builder("account.audit.queue.capacity", writer, AuditLogWriter::getCapacity).register(registry);
+            FunctionCounter.builder("account.audit.events.lost", writer, AuditLogWriter::getDroppedEvents)
+                    .tag("reason", "dropped").register(registry);
+            FunctionCounter.builder("account.audit.events.lost", writer, AuditLogWriter::getFailedEvents)
+                    .tag("reason", "failed").register(registry);
+            FunctionTimer.builder("account.audit.flush", writer, AuditLogWriter::getFlushCount,
+                            w -> w.getTotalFlushTime().toNanos(), TimeUnit.NANOSECONDS)
+                    .description("Batch inserts of the audit log writer")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Queued and running background payroll upload jobs.
+     *
+     * @return binder registering the upload job meters
+     */
+    @Bean
+    public MeterBinder paymentUploadJobMetrics(PaymentUploadJobService jobService) {
+        return registry -> {
+            Gauge.builder("account.payments.upload.jobs", jobService, PaymentUploadJobService::getQueuedJobs)
+                    .tag("state", "queued").register(registry);
+            Gauge.builder("account.payments.upload.jobs", jobService, PaymentUploadJobService::getRunningJobs)
+                    .tag("state", "running").register(registry);
+        };
+    }
+}
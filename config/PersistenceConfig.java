@@ -0,0 +1,46 @@
+package account.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Hibernate settings for batched writes.
+ * Entities take their ids from pooled sequences, so Hibernate knows ids before inserting and can
+ * group inserts of many entities into JDBC batches, which IDENTITY columns prevent.
+ */
+@Configuration
+public class PersistenceConfig {
+
+    /**
+     * Enables JDBC batching and orders inserts and updates by entity, so consecutive statements
+     * of a flush share one batch.
+     *
+     * @param batchSize number of statements sent in one JDBC batch
+     * @return customizer adding the batching properties
+     */
+    @Bean
+    public HibernatePropertiesCustomizer batchingHibernatePropertiesCustomizer(
+            @Value("${account.jpa.batch-size:50}") int batchSize) {
+        return properties -> {
+            properties.putIfAbsent(AvailableSettings.STATEMENT_BATCH_SIZE, batchSize);
+            properties.putIfAbsent(AvailableSettings.ORDER_INSERTS, true);
+            properties.putIfAbsent(AvailableSettings.ORDER_UPDATES, true);
+            properties.putIfAbsent(AvailableSettings.BATCH_VERSIONED_DATA, true);
+        };
+    }
+
+    /**
+     * Makes the entity manager factory wait for {@link SchemaMigrator}, so existing databases are
+     * migrated before Hibernate validates or updates the schema.
+     *
+     * @return post processor adding the dependency
+     */
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor schemaMigratorDependency() {
+        return new EntityManagerFactoryDependsOnPostProcessor(SchemaMigrator.class);
+    }
+}
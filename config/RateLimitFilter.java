@@ -0,0 +1,217 @@
+package account.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static account.event.util.EventUtil.*;
+
+/**
+ * Filter to throttle requests before they reach authentication.
+ * Every request matching a rule takes a token from the bucket of its client IP, and requests
+ * carrying HTTP Basic credentials also take one from the bucket of the presented username.
+ * The username token is given back unless authentication failed, so only failed attempts count
+ * against a username and nobody can be throttled by their own successful requests.
+ * Requests over the limit are rejected with 429 Too Many Requests without any password hashing,
+ * and Retry-After tells when the bucket that rejected them has a token again.
+ * Rules are configured in SecurityConfig; the first rule matching the request path applies.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    /**
+     * Capacity of a bucket and the time it takes to refill it completely.
+     */
+    public record Limit(int capacity, Duration refillPeriod) {
+        public static Limit of(int capacity, Duration refillPeriod) {
+            return new Limit(capacity, refillPeriod);
+        }
+    }
+
+    /**
+     * Limits applied to requests whose path matches an Ant-style pattern.
+     */
+    public record Rule(String pattern, Limit perIp, Limit perUser) {
+    }
+
+    private final AntPathMatcher matcher = new AntPathMatcher();
+    private final List<Rule> rules;
+    private final BucketStore ipBuckets;
+    private final BucketStore userBuckets;
+
+    public RateLimitFilter(List<Rule> rules, int maxTrackedKeys, Duration idleTimeout) {
+        this.rules = List.copyOf(rules);
+        this.ipBuckets = new BucketStore(maxTrackedKeys, idleTimeout);
+        this.userBuckets = new BucketStore(maxTrackedKeys, idleTimeout);
+    }
+
+    /**
+     * Takes tokens for the client IP and username and rejects the request if either bucket is empty.
+     * The username token is returned once the request authenticated successfully.
+     *
+     * @param request the HTTP request
+     * @param response the HTTP response
+     * @param filterChain the filter chain
+     * @throws ServletException if a servlet error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        Rule rule = findRule(request.getRequestURI());
+
+        String userKey = null;
+        if (rule != null) {
+            String ruleKey = rule.pattern() + "|";
+            long waitNanos = ipBuckets.tryConsume(ruleKey + request.getRemoteAddr(), rule.perIp());
+
+            // Only Basic credentials lead to password hashing, bearer tokens are cheap to verify
+            String email = getBasicUsername(request);
+            if (waitNanos == 0 && email != null) {
+                userKey = ruleKey + email.toLowerCase(Locale.ROOT);
+                waitNanos = userBuckets.tryConsume(userKey, rule.perUser());
+            }
+
+            if (waitNanos > 0) {
+                reject(request, response, waitNanos);
+                return;
+            }
+        }
+
+        // Continue with the filter chain
+        filterChain.doFilter(request, response);
+
+        // The token was taken up front, so concurrent guesses can't all pass before any is counted
+        if (userKey != null && response.getStatus() != HttpServletResponse.SC_UNAUTHORIZED) {
+            userBuckets.refund(userKey);
+        }
+    }
+
+    private String getBasicUsername(HttpServletRequest request) {
+        try {
+            return getEmailFromAuthHeader(request.getHeader("Authorization"));
+        } catch (IllegalArgumentException e) {
+            // Malformed Base64 is left to the authentication filter to reject
+            return null;
+        }
+    }
+
+    private Rule findRule(String path) {
+        for (Rule rule : rules) {
+            if (matcher.match(rule.pattern(), path)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, long waitNanos) throws IOException {
+        // Whole seconds until the bucket that rejected the request has a token again
+        long retryAfter = Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+
+        // Set status code, retry hint and JSON content type to HttpServletResponse
+        response.setStatus(429);
+        response.setHeader("Retry-After", String.valueOf(retryAfter));
+        response.setContentType("application/json");
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", System.currentTimeMillis());
+        body.put("status", 429);
+        body.put("error", "Too Many Requests");
+        body.put("message", "Too many requests, try again later!");
+        body.put("path", request.getRequestURI());
+
+        mapAndSendResponse(body, response);
+    }
+
+    // Token buckets in a bounded map, idle buckets are evicted when the map fills up
+    private static final class BucketStore {
+
+        private final int maxKeys;
+        private final long idleTimeoutNanos;
+        private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+        private BucketStore(int maxKeys, Duration idleTimeout) {
+            this.maxKeys = maxKeys;
+            this.idleTimeoutNanos = idleTimeout.toNanos();
+        }
+
+        // Returns 0 if a token was taken, else the nanoseconds until the next token
+        private long tryConsume(String key, Limit limit) {
+            TokenBucket bucket = buckets.get(key);
+            if (bucket == null) {
+                if (buckets.size() >= maxKeys) {
+                    evict();
+                }
+                bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(limit));
+            }
+            return bucket.tryConsume();
+        }
+
+        // Give back a token taken by tryConsume, unless the bucket was evicted meanwhile
+        private void refund(String key) {
+            TokenBucket bucket = buckets.get(key);
+            if (bucket != null) {
+                bucket.refund();
+            }
+        }
+
+        private void evict() {
+            long now = System.nanoTime();
+            buckets.values().removeIf(bucket -> bucket.isIdle(now, idleTimeoutNanos));
+
+            // Still full, so drop arbitrary buckets rather than grow without bound
+            Iterator<String> keys = buckets.keySet().iterator();
+            int excess = buckets.size() - maxKeys * 9 / 10;
+            while (excess-- > 0 && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+    }
+
+    private static final class TokenBucket {
+
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long lastRefill;
+
+        private TokenBucket(Limit limit) {
+            this.capacity = limit.capacity();
+            this.tokensPerNano = limit.capacity() / (double) limit.refillPeriod().toNanos();
+            this.tokens = limit.capacity();
+            this.lastRefill = System.nanoTime();
+        }
+
+        private synchronized long tryConsume() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+
+            if (tokens < 1) {
+                return Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerNano));
+            }
+            tokens--;
+            return 0;
+        }
+
+        private synchronized void refund() {
+            tokens = Math.min(capacity, tokens + 1);
+        }
+
+        private synchronized boolean isIdle(long now, long idleTimeoutNanos) {
+            return now - lastRefill > idleTimeoutNanos;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package account.config;
+
+import account.model.Role;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Canonical Role instances, loaded once at startup by {@link DataLoader}.
+ * Each role is assigned a bit, and the administrative and business groups are precomputed
+ * as bitmasks, so role lookups and group checks never touch the database.
+ * The registry is replaced as a whole on load and never modified afterwards.
+ */
+@Component
+public class RoleRegistry {
+
+    public static final String ROLE_ADMINISTRATOR = "ROLE_ADMINISTRATOR";
+    public static final String ROLE_USER = "ROLE_USER";
+    public static final String ROLE_ACCOUNTANT = "ROLE_ACCOUNTANT";
+    public static final String ROLE_AUDITOR = "ROLE_AUDITOR";
+
+    private static final Set<String> ADMINISTRATIVE_ROLES = Set.of(ROLE_ADMINISTRATOR);
+    private static final Set<String> BUSINESS_ROLES = Set.of(ROLE_USER, ROLE_ACCOUNTANT, ROLE_AUDITOR);
+
+    private record Entry(Role role, long bit) {
+    }
+
+    private record Snapshot(Map<String, Entry> entries, long administrativeMask, long businessMask) {
+    }
+
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), 0, 0);
+
+    // Replace the registry with the given roles, bits are assigned in id order
+    public void load(Collection<Role> roles) {
+        List<Role> ordered = roles.stream().sorted(Comparator.comparing(Role::getId)).toList();
+        if (ordered.size() > Long.SIZE) {
+            throw new IllegalStateException("At most " + Long.SIZE + " roles are supported");
+        }
+
+        Map<String, Entry> entries = new HashMap<>();
+        long administrativeMask = 0;
+        long businessMask = 0;
+        for (int i = 0; i < ordered.size(); i++) {
+            Role role = ordered.get(i);
+            long bit = 1L << i;
+            entries.put(role.getName(), new Entry(role, bit));
+
+            if (ADMINISTRATIVE_ROLES.contains(role.getName())) {
+                administrativeMask |= bit;
+            }
+            if (BUSINESS_ROLES.contains(role.getName())) {
+                businessMask |= bit;
+            }
+        }
+
+        snapshot = new Snapshot(Map.copyOf(entries), administrativeMask, businessMask);
+    }
+
+    /**
+     * @return canonical instance of the role, or null if no role has this name
+     */
+    public Role get(String name) {
+        Entry entry = name == null ? null : snapshot.entries().get(name);
+        return entry == null ? null : entry.role();
+    }
+
+    public long maskOf(Role role) {
+        Entry entry = role == null ? null : snapshot.entries().get(role.getName());
+        return entry == null ? 0 : entry.bit();
+    }
+
+    public long maskOf(Collection<Role> roles) {
+        long mask = 0;
+        for (Role role : roles) {
+            mask |= maskOf(role);
+        }
+        return mask;
+    }
+
+    public boolean isAdministrative(long mask) {
+        return (mask & snapshot.administrativeMask()) != 0;
+    }
+
+    public boolean isBusiness(long mask) {
+        return (mask & snapshot.businessMask()) != 0;
+    }
+}
@@ -0,0 +1,204 @@
+package account.config;
+
+import account.repository.SequenceIdAllocator;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Brings databases created by earlier versions of the application to the current schema.
+ * Runs before the entity manager factory is built (see {@link PersistenceConfig}), so Hibernate's
+ * schema update only ever sees tables it can extend. Every step checks the current shape of the
+ * schema first, so it does nothing on new or already migrated databases and can be re-run after
+ * a failure.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SchemaMigrator {
+
+    // Tables whose ids moved from IDENTITY columns to pooled sequences, with their sequence
+    private static final Map<String, String> ID_SEQUENCES = Map.of(
+            "payments", "payments_seq",
+            "logdto", "logdto_seq",
+            "app_user", "app_user_seq",
+            "login_attempt", "login_attempt_seq");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void migrate() {
+        migratePeriodsToKeys();
+        migratePaymentsToUserIds();
+        migrateIdempotencyRecords();
+        ID_SEQUENCES.forEach(this::alignSequence);
+        // Replaced by idx_log_date_id, which also serves the id order of event listings
+        jdbcTemplate.execute("DROP INDEX IF EXISTS idx_log_date");
+        // Rebuilds no longer lock out writers
+        jdbcTemplate.execute("DROP TABLE IF EXISTS payroll_aggregate_lock");
+    }
+
+    // Periods used to be stored as "MM-yyyy" strings, which neither sort nor compare by date
+    private void migratePeriodsToKeys() {
+        String type = columnType("payments", "period");
+        if (type == null && hasColumn("payments", "period_key")) {
+            // An earlier run stopped right before the rename
+            jdbcTemplate.execute("ALTER TABLE payments ALTER COLUMN period_key RENAME TO period");
+            return;
+        }
+        if (type == null || !type.toUpperCase(Locale.ROOT).startsWith("CHARACTER")) {
+            return;
+        }
+        log.info("Migrating payment periods from MM-yyyy strings to yyyyMM keys");
+
+        Long malformed = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM payments " +
+                "WHERE NOT REGEXP_LIKE(period, '^(0[1-9]|1[0-2])-[0-9]{4}$')", Long.class);
+        if (malformed != null && malformed > 0) {
+            throw new IllegalStateException(malformed + " payment(s) have a period not in MM-yyyy format, " +
+                    "correct them before starting the application");
+        }
+
+        // Indexes over the old column are recreated on the new one by the following steps and Hibernate
+        jdbcTemplate.execute("ALTER TABLE payments DROP CONSTRAINT IF EXISTS uk_payments_employee_period");
+        jdbcTemplate.execute("ALTER TABLE payments DROP CONSTRAINT IF EXISTS uk_payments_user_period");
+        jdbcTemplate.execute("DROP INDEX IF EXISTS idx_payments_employee_period");
+
+        if (!hasColumn("payments", "period_key")) {
+            jdbcTemplate.execute("ALTER TABLE payments ADD COLUMN period_key INTEGER");
+        }
+        jdbcTemplate.update("UPDATE payments SET period_key = " +
+                "CAST(SUBSTRING(period, 4, 4) AS INTEGER) * 100 + CAST(SUBSTRING(period, 1, 2) AS INTEGER)");
+        jdbcTemplate.execute("ALTER TABLE payments DROP COLUMN period");
+        jdbcTemplate.execute("ALTER TABLE payments ALTER COLUMN period_key RENAME TO period");
+    }
+
+    // Payments and employee year totals used to be keyed by the employee email
+    private void migratePaymentsToUserIds() {
+        if (hasColumn("payments", "employee")) {
+            log.info("Migrating payments from employee emails to user ids");
+
+            if (!hasColumn("payments", "user_id")) {
+                jdbcTemplate.execute("ALTER TABLE payments ADD COLUMN user_id BIGINT");
+            }
+            jdbcTemplate.update("UPDATE payments p SET user_id = " +
+                    "(SELECT u.id FROM app_user u WHERE LOWER(u.email) = LOWER(p.employee)) " +
+                    "WHERE p.user_id IS NULL");
+
+            // Payments of deleted users can't be keyed, they have to be resolved by hand
+            Long orphans = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM payments WHERE user_id IS NULL", Long.class);
+            if (orphans != null && orphans > 0) {
+                throw new IllegalStateException(orphans + " payment(s) belong to employees without an account, " +
+                        "assign or remove them before starting the application");
+            }
+
+            jdbcTemplate.execute("ALTER TABLE payments ALTER COLUMN user_id SET NOT NULL");
+            jdbcTemplate.execute("ALTER TABLE payments DROP CONSTRAINT IF EXISTS uk_payments_employee_period");
+            jdbcTemplate.execute("DROP INDEX IF EXISTS idx_payments_employee_period");
+            jdbcTemplate.execute("ALTER TABLE payments DROP COLUMN employee");
+        }
+        if (hasTable("payments")) {
+            if (!hasConstraint("payments", "fk_payments_user")) {
+                jdbcTemplate.execute("ALTER TABLE payments ADD CONSTRAINT fk_payments_user " +
+                        "FOREIGN KEY (user_id) REFERENCES app_user (id)");
+            }
+            if (!hasConstraint("payments", "uk_payments_user_period")) {
+                jdbcTemplate.execute("ALTER TABLE payments ADD CONSTRAINT uk_payments_user_period UNIQUE (user_id, period)");
+            }
+        }
+
+        if (hasColumn("employee_year_total", "employee")) {
+            if (!hasColumn("employee_year_total", "user_id")) {
+                jdbcTemplate.execute("ALTER TABLE employee_year_total ADD COLUMN user_id BIGINT");
+            }
+            jdbcTemplate.update("UPDATE employee_year_total t SET user_id = " +
+                    "(SELECT u.id FROM app_user u WHERE LOWER(u.email) = LOWER(t.employee))");
+            // Sums of employees without an account have no payments left to describe
+            jdbcTemplate.update("DELETE FROM employee_year_total WHERE user_id IS NULL");
+
+            jdbcTemplate.execute("ALTER TABLE employee_year_total DROP PRIMARY KEY");
+            jdbcTemplate.execute("ALTER TABLE employee_year_total DROP COLUMN employee");
+            jdbcTemplate.execute("ALTER TABLE employee_year_total ALTER COLUMN user_id SET NOT NULL");
+            jdbcTemplate.execute("ALTER TABLE employee_year_total ADD PRIMARY KEY (user_id, pay_year)");
+        }
+
+        // Staged rows never survive a restart, so the table is simply recreated
+        if (hasColumn("payment_staging", "employee")) {
+            jdbcTemplate.execute("DROP TABLE payment_staging");
+        }
+    }
+
+    // Idempotency keys used to be global and had no lease
+    private void migrateIdempotencyRecords() {
+        if (!hasTable("idempotency_record") || hasColumn("idempotency_record", "lease_id")) {
+            return;
+        }
+        log.info("Scoping idempotency keys to their owners");
+
+        jdbcTemplate.execute("ALTER TABLE idempotency_record ADD COLUMN lease_id VARCHAR(255)");
+        jdbcTemplate.execute("ALTER TABLE idempotency_record ADD COLUMN locked_until TIMESTAMP");
+        // Uploads in progress before the upgrade are gone, their keys can be taken over right away
+        jdbcTemplate.update("UPDATE idempotency_record SET owner = LOWER(owner), locked_until = created_at");
+        jdbcTemplate.execute("ALTER TABLE idempotency_record DROP PRIMARY KEY");
+        jdbcTemplate.execute("ALTER TABLE idempotency_record ADD PRIMARY KEY (owner, idempotency_key)");
+    }
+
+    // Let the sequence continue after the ids already used by the table
+    // Hibernate's pooled optimizer and SequenceIdAllocator read a value v as the block (v - ALLOCATION_SIZE, v],
+    // so the first value has to be MAX(id) + ALLOCATION_SIZE for the first block to start at MAX(id) + 1
+    private void alignSequence(String table, String sequence) {
+        if (!hasTable(table)) {
+            return;
+        }
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        if (maxId == null) {
+            return;
+        }
+        long start = maxId + SequenceIdAllocator.ALLOCATION_SIZE;
+
+        Long next = jdbcTemplate.queryForList("SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES " +
+                "WHERE SEQUENCE_SCHEMA = SCHEMA() AND UPPER(SEQUENCE_NAME) = UPPER(?)", Long.class, sequence)
+                .stream().findFirst().orElse(null);
+        if (next == null) {
+            log.info("Creating sequence {} starting at {}", sequence, start);
+            jdbcTemplate.execute("CREATE SEQUENCE " + sequence + " START WITH " + start +
+                    " INCREMENT BY " + SequenceIdAllocator.ALLOCATION_SIZE);
+        } else if (next < start) {
+            log.warn("Sequence {} is behind the ids of {}, restarting it at {}", sequence, table, start);
+            jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + start);
+        }
+    }
+
+    private boolean hasTable(String table) {
+        return count("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES " +
+                "WHERE TABLE_SCHEMA = SCHEMA() AND UPPER(TABLE_NAME) = UPPER(?)", table) > 0;
+    }
+
+    private boolean hasColumn(String table, String column) {
+        return count("SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS " +
+                "WHERE TABLE_SCHEMA = SCHEMA() AND UPPER(TABLE_NAME) = UPPER(?) AND UPPER(COLUMN_NAME) = UPPER(?)",
+                table, column) > 0;
+    }
+
+    // Data type of the column, or null if there is no such column
+    private String columnType(String table, String column) {
+        return jdbcTemplate.queryForList("SELECT DATA_TYPE FROM INFORMATION_SCHEMA.COLUMNS " +
+                        "WHERE TABLE_SCHEMA = SCHEMA() AND UPPER(TABLE_NAME) = UPPER(?) AND UPPER(COLUMN_NAME) = UPPER(?)",
+                String.class, table, column).stream().findFirst().orElse(null);
+    }
+
+    private boolean hasConstraint(String table, String constraint) {
+        return count("SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS " +
+                "WHERE TABLE_SCHEMA = SCHEMA() AND UPPER(TABLE_NAME) = UPPER(?) AND UPPER(CONSTRAINT_NAME) = UPPER(?)",
+                table, constraint) > 0;
+    }
+
+    private long count(String sql, Object... args) {
+        Long count = jdbcTemplate.queryForObject(sql, Long.class, args);
+        return count == null ? 0 : count;
+    }
+}
@@ -2,22 +2,32 @@ package account.config;
 
 import account.event.CustomAccessDeniedHandler;
 import account.event.CustomAuthenticationFailureHandler;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.annotation.web.configurers.ExceptionHandlingConfigurer;
 import org.springframework.security.config.annotation.web.configurers.ExpressionUrlAuthorizationConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
+import java.time.Duration;
+import java.util.List;
+
 @Configuration
 @RequiredArgsConstructor
 public class SecurityConfig {
@@ -25,12 +35,59 @@ public class SecurityConfig {
     private final CustomAuthenticationFailureHandler failureHandler;
     private final CustomAccessDeniedHandler accessDeniedHandler;
     private final OriginalRequestFilter requestFilter;
+    private final TokenAuthenticationFilter tokenFilter;
+
+    // Can be disabled for load tests, where all traffic comes from a single client IP
+    @Value("${account.rate-limit.enabled:true}")
+    private boolean rateLimitEnabled;
+
+    private static final String METRICS_ROLE = "METRICS";
 
+    /**
+     * Prometheus scrapes authenticate with HTTP Basic as a dedicated scrape user, configured with
+     * account.metrics.scrape.username and account.metrics.scrape.password. The user only exists in
+     * memory and only grants the metrics endpoint, so scrapes never touch the user table, the
+     * credential cache or the login attempt tracking. Without a password the endpoint is closed.
+     */
     @Bean
+    @Order(1)
+    public SecurityFilterChain metricsFilterChain(HttpSecurity http, PasswordEncoder encoder,
+                                                  @Value("${account.metrics.scrape.username:prometheus}") String username,
+                                                  @Value("${account.metrics.scrape.password:}") String password) throws Exception {
+        InMemoryUserDetailsManager scrapeUsers = new InMemoryUserDetailsManager();
+        if (!password.isEmpty()) {
+            scrapeUsers.createUser(User.withUsername(username)
+                    .password(encoder.encode(password))
+                    .roles(METRICS_ROLE)
+                    .build());
+        }
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(scrapeUsers);
+        provider.setPasswordEncoder(encoder);
+
+        http
+                .securityMatcher("/actuator/prometheus")
+                .authenticationManager(new ProviderManager(provider))
+                .httpBasic(Customizer.withDefaults())
+                .csrf(AbstractHttpConfigurer::disable)
+                .authorizeHttpRequests(auth -> auth
+                        .requestMatchers(HttpMethod.GET, "/actuator/prometheus").hasRole(METRICS_ROLE)
+                        .anyRequest().denyAll())
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+        return http.build();
+    }
+
+    @Bean
+    @Order(2)
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
                 .httpBasic(Customizer.withDefaults())
-                .addFilterBefore(requestFilter, BasicAuthenticationFilter.class)
+                .addFilterBefore(requestFilter, BasicAuthenticationFilter.class);
+        if (rateLimitEnabled) {
+            http.addFilterBefore(rateLimitFilter(), BasicAuthenticationFilter.class);
+        }
+        http
+                .addFilterBefore(tokenFilter, BasicAuthenticationFilter.class)
                 .exceptionHandling(this::configureExceptionHandling)
                 .csrf(AbstractHttpConfigurer::disable)
                 .headers(AbstractHttpConfigurer::disable)
@@ -39,6 +96,20 @@ public class SecurityConfig {
         return http.build();
     }
 
+    // Throttle requests per client IP and per username before any password hashing happens
+    // Authentication endpoints get the tightest limits as they are the brute-force targets
+    private RateLimitFilter rateLimitFilter() {
+        List<RateLimitFilter.Rule> rules = List.of(
+                new RateLimitFilter.Rule("/api/auth/**",
+                        RateLimitFilter.Limit.of(30, Duration.ofMinutes(1)),
+                        RateLimitFilter.Limit.of(10, Duration.ofMinutes(1))),
+                new RateLimitFilter.Rule("/api/**",
+                        RateLimitFilter.Limit.of(600, Duration.ofMinutes(1)),
+                        RateLimitFilter.Limit.of(300, Duration.ofMinutes(1))));
+
+        return new RateLimitFilter(rules, 100_000, Duration.ofMinutes(10));
+    }
+
     private void configureExceptionHandling(ExceptionHandlingConfigurer<HttpSecurity> ex) {
         ex.authenticationEntryPoint(failureHandler::onAuthenticationFailure)
                 .accessDeniedHandler(accessDeniedHandler);
@@ -47,16 +118,30 @@ public class SecurityConfig {
     private void configureAuthorizationRules(ExpressionUrlAuthorizationConfigurer<HttpSecurity>.ExpressionInterceptUrlRegistry auth) {
         auth.requestMatchers(HttpMethod.POST, "/api/auth/signup").permitAll()
                 .requestMatchers("/actuator/shutdown").permitAll()
+                .requestMatchers(HttpMethod.POST, "/api/auth/token").authenticated()
                 .requestMatchers("/api/auth/changepass").hasAnyRole("USER", "ACCOUNTANT", "ADMINISTRATOR")
                 .requestMatchers("/api/empl/payment").hasAnyRole("USER", "ACCOUNTANT")
                 .requestMatchers("/api/acct/payments").hasRole("ACCOUNTANT")
+                .requestMatchers(HttpMethod.POST, "/api/acct/payments/summary/rebuild").hasRole("ADMINISTRATOR")
+                .requestMatchers("/api/acct/payments/summary/**").hasRole("ACCOUNTANT")
+                .requestMatchers("/api/acct/payments/jobs/**").hasRole("ACCOUNTANT")
                 .requestMatchers("/api/admin/**").hasRole("ADMINISTRATOR")
                 .requestMatchers("/api/security/events/").hasRole("AUDITOR")
+                .requestMatchers("/api/security/events/export").hasRole("AUDITOR")
                 .anyRequest().denyAll();
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(13);
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                           @Value("${account.threads.virtual:false}") boolean virtualThreads,
+                                           @Value("${account.threads.password-hashing:0}") int hashingThreads) {
+        PasswordEncoder encoder = new TimedPasswordEncoder(new BCryptPasswordEncoder(13), meterRegistry);
+        if (!virtualThreads) {
+            // Hashing is already bounded by the size of the Tomcat worker pool
+            return encoder;
+        }
+
+        int threads = hashingThreads > 0 ? hashingThreads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(encoder, threads);
     }
 }
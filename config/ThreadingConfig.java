@@ -0,0 +1,31 @@
+package account.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Virtual thread execution mode, enabled with {@code account.threads.virtual=true}.
+ * Every request is handled on its own virtual thread, so requests blocked on JDBC release their
+ * carrier instead of holding one of a fixed number of Tomcat worker threads. Audit event listeners
+ * run on the publishing request thread and are therefore virtual too, which keeps events of one
+ * request in publishing order.
+ * CPU-bound password hashing is kept off the carriers, see {@link BoundedPasswordEncoder}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "account.threads.virtual", havingValue = "true")
+public class ThreadingConfig {
+
+    /**
+     * Replaces the Tomcat worker pool with an executor starting a virtual thread per request.
+     *
+     * @return customizer setting the executor of the Tomcat protocol handler
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+}
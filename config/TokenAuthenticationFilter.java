@@ -0,0 +1,68 @@
+package account.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Filter to authenticate requests carrying a "Bearer" access token issued by /api/auth/token.
+ * Requests without a valid token continue unauthenticated, so HTTP Basic still applies
+ * and invalid tokens end up in the regular 401 handling.
+ */
+@Component
+@RequiredArgsConstructor
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String TOKEN_ENDPOINT = "/api/auth/token";
+
+    private final AccessTokenService tokenService;
+
+    /**
+     * Tokens are only issued for HTTP Basic credentials, otherwise a leaked token could renew itself
+     * forever and the TTL would mean nothing. Bearer requests to the token endpoint stay unauthenticated.
+     *
+     * @param request the HTTP request
+     * @return true for requests to the token endpoint
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return TOKEN_ENDPOINT.equals(request.getRequestURI());
+    }
+
+    /**
+     * Validates the bearer token, if present, and stores the resulting authentication
+     * in the security context.
+     *
+     * @param request the HTTP request
+     * @param response the HTTP response
+     * @param filterChain the filter chain
+     * @throws ServletException if a servlet error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String authHeader = request.getHeader("Authorization");
+
+        if (authHeader != null && authHeader.startsWith(BEARER_PREFIX)) {
+            Authentication auth = tokenService.authenticate(authHeader.substring(BEARER_PREFIX.length()).trim());
+            if (auth != null) {
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(auth);
+                SecurityContextHolder.setContext(context);
+            }
+        }
+
+        // Continue with the filter chain
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,53 @@
+package account.config;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a per-user version number that is embedded into issued access tokens.
+ * Bumping the version of a user invalidates every token issued to them before the bump.
+ * Only users whose version was ever bumped take up an entry.
+ */
+@Component
+public class TokenVersionRegistry {
+
+    private final ConcurrentHashMap<String, Long> versions = new ConcurrentHashMap<>();
+
+    public long current(String email) {
+        return versions.getOrDefault(normalize(email), 0L);
+    }
+
+    public void bump(String email) {
+        if (email == null) {
+            return;
+        }
+        versions.merge(normalize(email), 1L, Long::sum);
+    }
+
+    // Bump once the surrounding transaction committed; a token issued before that would carry
+    // the bumped version while its login still saw the old row, and outlive the change
+    public void bumpAfterCommit(String email) {
+        if (email == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump(email);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bump(email);
+            }
+        });
+    }
+
+    private static String normalize(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,166 @@
+package account.config;
+
+import account.event.UserActionEvent;
+import account.model.AppUserAdapter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Two level cache of immutable user snapshots.
+ * Within a request the same snapshot is always returned, so authentication and the service layer
+ * see one consistent view of the user. Across requests snapshots are kept in a bounded LRU map
+ * with a TTL and dropped as soon as an event changing the user is published.
+ * Evictions bump a per-user generation, and snapshots loaded under an older generation are
+ * not cached across requests, so a load that read the row before a change committed can't
+ * bring the old snapshot back.
+ */
+@Component
+public class UserDetailsCache {
+
+    private static final String REQUEST_ATTRIBUTE_PREFIX = UserDetailsCache.class.getName() + ".";
+
+    // Users share generation counters by hash, a collision only costs a skipped put
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final int maxSize;
+    private final long ttlNanos;
+
+    // Access-ordered map gives LRU iteration order; guarded by "this"
+    private final LinkedHashMap<String, Entry> entries;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public UserDetailsCache(@Value("${account.auth.user-cache.max-size:10000}") int maxSize,
+                            @Value("${account.auth.user-cache.ttl:PT1M}") Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > UserDetailsCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return cached snapshot of the user, or null if it has to be loaded from the database
+     */
+    public AppUserAdapter get(String email) {
+        String key = normalize(email);
+
+        AppUserAdapter user = getFromRequest(key);
+        if (user != null) {
+            hits.increment();
+            return user;
+        }
+
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt - System.nanoTime() > 0) {
+                user = entry.user;
+            } else if (entry != null) {
+                entries.remove(key);
+            }
+        }
+
+        if (user == null) {
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        putInRequest(key, user);
+        return user;
+    }
+
+    /**
+     * @return current generation of the user, to be read before the snapshot is loaded
+     */
+    public long generation(String email) {
+        return generations.get(stripe(normalize(email)));
+    }
+
+    // Snapshots loaded before the user was last evicted are only kept for the current request
+    public void put(AppUserAdapter user, long generation) {
+        String key = normalize(user.getUsername());
+        synchronized (this) {
+            if (generations.get(stripe(key)) == generation) {
+                entries.put(key, new Entry(user, System.nanoTime() + ttlNanos));
+            }
+        }
+        putInRequest(key, user);
+    }
+
+    public void evict(String email) {
+        if (email == null) {
+            return;
+        }
+        String key = normalize(email);
+        synchronized (this) {
+            generations.incrementAndGet(stripe(key));
+            entries.remove(key);
+        }
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.removeAttribute(REQUEST_ATTRIBUTE_PREFIX + key, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    // Drop snapshot of the affected user once the change is committed
+    // Runs immediately when the event is published outside a transaction
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserAction(UserActionEvent event) {
+        evict(event.getTargetEmail());
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private AppUserAdapter getFromRequest(String key) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        return (AppUserAdapter) attributes.getAttribute(REQUEST_ATTRIBUTE_PREFIX + key, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    private void putInRequest(String key, AppUserAdapter user) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(REQUEST_ATTRIBUTE_PREFIX + key, user, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    private static int stripe(String key) {
+        return Math.floorMod(key.hashCode(), GENERATION_STRIPES);
+    }
+
+    private static String normalize(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    private record Entry(AppUserAdapter user, long expiresAt) {
+    }
+}
@@ -5,7 +5,6 @@ import account.model.AppUserAdapter;
 import account.repository.AppUserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -13,19 +12,30 @@ import org.springframework.stereotype.Service;
 // This service loads user details by email for authentication purposes.
 // It is used by Spring Security during login to retrieve user data.
 // Converts AppUser objects to UserDetails using AppUserAdapter.
+// Snapshots are served from UserDetailsCache, so the database is only hit on a cache miss.
 @Service
 @RequiredArgsConstructor
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     private final AppUserRepository userRepository;
+    private final UserDetailsCache userCache;
 
     @Override
-    public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+    public AppUserAdapter loadUserByUsername(String email) throws UsernameNotFoundException {
+        AppUserAdapter cached = userCache.get(email);
+        if (cached != null) {
+            return cached;
+        }
+
+        // Read before the lookup, so a change committed meanwhile keeps the snapshot out of the cache
+        long generation = userCache.generation(email);
         AppUser user = userRepository.findByEmailIgnoreCase(email);
         if (user == null) {
             throw new UsernameNotFoundException("User not found");
         }
-        return new AppUserAdapter(user);
+
+        AppUserAdapter snapshot = new AppUserAdapter(user);
+        userCache.put(snapshot, generation);
+        return snapshot;
     }
 }
-
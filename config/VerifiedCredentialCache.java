@@ -0,0 +1,214 @@
+package account.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of recently verified HTTP Basic credentials.
+ * Entries are keyed by an HMAC of the "username:password" pair carried in the
+ * Authorization header, so neither the raw password nor an unsalted hash of it
+ * is ever held in memory. Entries expire after a fixed TTL and the least
+ * recently used entry is evicted once the cache is full.
+ * Every user maps to a generation counter that is bumped when the user is evicted;
+ * a verification that started under an older generation is not cached, so a login
+ * racing with a password change or lock can't re-add the old credential.
+ */
+@Component
+public class VerifiedCredentialCache {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    // Users share generation counters by hash, a collision only costs a skipped put
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final SecretKeySpec hmacKey;
+
+    // Access-ordered map gives LRU iteration order; guarded by "this"
+    private final LinkedHashMap<String, Entry> entries;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public VerifiedCredentialCache(@Value("${account.auth.credential-cache.max-size:10000}") int maxSize,
+                                   @Value("${account.auth.credential-cache.ttl:PT5M}") Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+
+        // Key is generated per process; the cache is never shared or persisted
+        byte[] keyBytes = new byte[32];
+        new SecureRandom().nextBytes(keyBytes);
+        this.hmacKey = new SecretKeySpec(keyBytes, HMAC_ALGORITHM);
+
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > VerifiedCredentialCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Computes the cache key for the given credentials.
+     *
+     * @param username the username as presented by the client
+     * @param password the raw password as presented by the client
+     * @return Base64 encoded HMAC of "username:password"
+     */
+    public String keyFor(String username, String password) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(hmacKey);
+            byte[] digest = mac.doFinal((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC is not available", e);
+        }
+    }
+
+    /**
+     * Returns a fresh authenticated token for a previously verified credential,
+     * or null if the key is unknown or its entry has expired.
+     */
+    public Authentication get(String key) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null && entry.expiresAt - System.nanoTime() <= 0) {
+                entries.remove(key);
+                entry = null;
+            }
+        }
+
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return UsernamePasswordAuthenticationToken.authenticated(entry.principal, null, entry.authorities);
+    }
+
+    /**
+     * Returns the current generation of the user, to be read before the credentials are verified.
+     */
+    public long generation(String username) {
+        return generations.get(stripe(normalize(username)));
+    }
+
+    /**
+     * Remembers the outcome of a successful BCrypt verification, unless the user was evicted
+     * after the verification started.
+     *
+     * @param generation generation of the user read before the verification
+     */
+    public void put(String key, Authentication authentication, long generation) {
+        String email = normalize(authentication.getName());
+        Entry entry = new Entry(
+                authentication.getPrincipal(),
+                email,
+                List.copyOf(authentication.getAuthorities()),
+                System.nanoTime() + ttlNanos);
+
+        synchronized (this) {
+            if (generations.get(stripe(email)) == generation) {
+                entries.put(key, entry);
+            }
+        }
+    }
+
+    // Drop every cached credential of the given user
+    public void evictUser(String email) {
+        if (email == null) {
+            return;
+        }
+        String normalized = normalize(email);
+        synchronized (this) {
+            generations.incrementAndGet(stripe(normalized));
+            entries.values().removeIf(entry -> entry.email.equals(normalized));
+        }
+    }
+
+    // Evict once the surrounding transaction committed, so no login can read the old row afterwards
+    public void evictUserAfterCommit(String email) {
+        if (email == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evictUser(email);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evictUser(email);
+            }
+        });
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    private static int stripe(String email) {
+        return Math.floorMod(email.hashCode(), GENERATION_STRIPES);
+    }
+
+    private static String normalize(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    private record Entry(Object principal, String email,
+                         Collection<? extends GrantedAuthority> authorities, long expiresAt) {
+    }
+}
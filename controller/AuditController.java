@@ -1,12 +1,19 @@
 package account.controller;
 
 import account.service.AuditService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
 @RestController
 @RequiredArgsConstructor
 public class AuditController {
@@ -14,7 +21,20 @@ public class AuditController {
     private final AuditService auditService;
 
     @GetMapping("/api/security/events/")
-    public ResponseEntity<?> getListOfEvents() {
-        return auditService.getListOfEvents();
+    public ResponseEntity<?> getListOfEvents(@RequestParam Optional<String> cursor,
+                                             @RequestParam Optional<Integer> limit,
+                                             @RequestParam Optional<String> action,
+                                             @RequestParam Optional<String> subject,
+                                             @RequestParam Optional<String> path,
+                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Optional<LocalDateTime> from,
+                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Optional<LocalDateTime> to) {
+        return auditService.getListOfEvents(cursor, limit, action, subject, path, from, to);
+    }
+
+    @GetMapping("/api/security/events/export")
+    public void exportEvents(@RequestParam Optional<Long> after,
+                             @RequestParam(defaultValue = "false") boolean gzip,
+                             HttpServletResponse response) throws IOException {
+        auditService.exportEvents(after, gzip, response);
     }
 }
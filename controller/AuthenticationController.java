@@ -33,4 +33,9 @@ public class AuthenticationController {
     public ResponseEntity<?> changePass(@RequestBody NewPasswordDTO newPasswordBody, Authentication auth, HttpServletRequest request) {
         return service.changePassword(newPasswordBody, auth, request);
     }
+
+    @PostMapping("/api/auth/token")
+    public ResponseEntity<?> issueToken(Authentication auth) {
+        return service.issueToken(auth);
+    }
 }
\ No newline at end of file
@@ -2,12 +2,19 @@ package account.controller;
 
 import account.model.Payments;
 import account.service.BusinessFunctionalityService;
+import account.service.IdempotencyService;
+import account.service.PaymentUploadJobService;
+import account.service.PayrollAggregateService;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,10 +23,19 @@ import java.util.Optional;
 public class BusinessFunctionalityController {
 
     private final BusinessFunctionalityService service;
+    private final PayrollAggregateService payrollAggregateService;
+    private final PaymentUploadJobService paymentUploadJobService;
+    private final IdempotencyService idempotencyService;
 
     @GetMapping("/api/empl/payment")
-    public ResponseEntity<?> getPayment(@RequestParam Optional<String> period, Authentication auth) {
-        return service.getPayment(period, auth);
+    public ResponseEntity<?> getPayment(@RequestParam Optional<String> period,
+                                        @RequestParam Optional<String> from,
+                                        @RequestParam Optional<String> to,
+                                        @RequestParam Optional<Integer> limit,
+                                        @RequestParam Optional<String> cursor,
+                                        @RequestHeader(HttpHeaders.IF_NONE_MATCH) Optional<String> ifNoneMatch,
+                                        Authentication auth) throws IOException {
+        return service.getPayment(period, from, to, limit, cursor, ifNoneMatch, auth);
     }
 
     @PostMapping("/api/acct/payments")
@@ -27,8 +43,54 @@ public class BusinessFunctionalityController {
         return service.uploadPayments(payments);
     }
 
+    // Retries with the same Idempotency-Key header get the response of the first upload
+    @PostMapping(value = "/api/acct/payments", headers = IdempotencyService.IDEMPOTENCY_KEY_HEADER)
+    public ResponseEntity<?> uploadPaymentsIdempotent(@RequestHeader(IdempotencyService.IDEMPOTENCY_KEY_HEADER) String idempotencyKey,
+                                                      HttpServletRequest request,
+                                                      Authentication auth) throws IOException {
+        return idempotencyService.execute(idempotencyKey, auth, request.getInputStream(), service::uploadPayments);
+    }
+
+    // Streaming mode for large uploads, selected with ?mode=stream
+    @PostMapping(value = "/api/acct/payments", params = "mode=stream")
+    public ResponseEntity<?> uploadPaymentsStream(@RequestHeader(IdempotencyService.IDEMPOTENCY_KEY_HEADER) Optional<String> idempotencyKey,
+                                                  HttpServletRequest request,
+                                                  Authentication auth) throws IOException {
+        if (idempotencyKey.isPresent()) {
+            return idempotencyService.execute(idempotencyKey.get(), auth, request.getInputStream(), service::uploadPaymentsStream);
+        }
+        return service.uploadPaymentsStream(request.getInputStream());
+    }
+
+    // Background upload, ?mode=chunked (default) skips invalid rows, ?mode=staged adds all rows or none
+    @PostMapping("/api/acct/payments/jobs")
+    public ResponseEntity<?> submitUploadJob(@RequestParam Optional<String> mode,
+                                             HttpServletRequest request,
+                                             Authentication auth) throws IOException {
+        return paymentUploadJobService.submit(request.getInputStream(), mode, auth);
+    }
+
+    @GetMapping("/api/acct/payments/jobs/{jobId}")
+    public ResponseEntity<?> getUploadJob(@PathVariable String jobId, Authentication auth) {
+        return paymentUploadJobService.getStatus(jobId, auth);
+    }
+
+    // Single payment object, or an array of corrections applied in bulk
     @PutMapping("/api/acct/payments")
-    public ResponseEntity<?> updatePayments(@RequestBody Payments payment) {
-        return service.updatePayment(payment);
+    public ResponseEntity<?> updatePayments(@RequestBody JsonNode body) {
+        return service.updatePayments(body);
+    }
+
+    // Payroll sums of a period (?period=MM-yyyy) or of an employee in a year (?employee=...&year=yyyy)
+    @GetMapping("/api/acct/payments/summary")
+    public ResponseEntity<?> getPayrollSummary(@RequestParam Optional<String> period,
+                                               @RequestParam Optional<String> employee,
+                                               @RequestParam Optional<Integer> year) {
+        return payrollAggregateService.getSummary(period, employee, year);
+    }
+
+    @PostMapping("/api/acct/payments/summary/rebuild")
+    public ResponseEntity<?> rebuildPayrollSummary() {
+        return payrollAggregateService.rebuild();
     }
-}
\ No newline at end of file
+}
@@ -12,6 +12,8 @@ import org.springframework.security.core.Authentication;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Optional;
+
 @RestController
 @RequiredArgsConstructor
 public class ServiceFunctionalityController {
@@ -33,8 +35,11 @@ public class ServiceFunctionalityController {
     }
 
     @GetMapping("/api/admin/user/")
-    public ResponseEntity<?> displayInformation() {
-        return service.displayInformation();
+    public ResponseEntity<?> displayInformation(@RequestParam Optional<String> cursor,
+                                                @RequestParam Optional<Integer> limit,
+                                                @RequestParam Optional<String> role,
+                                                @RequestParam Optional<Boolean> blocked) {
+        return service.displayInformation(cursor, limit, role, blocked);
     }
 
     @PutMapping("/api/admin/user/access")
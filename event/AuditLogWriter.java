@@ -0,0 +1,241 @@
+package account.event;
+
+import account.event.util.BoundedRingBuffer;
+import account.model.DTO.LogDTO;
+import account.repository.SequenceIdAllocator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes audit logs off the request thread.
+ * Events are queued in a lock-free ring buffer and a dedicated writer thread inserts them
+ * with JDBC batches, flushing whenever a batch fills up or the flush interval elapses.
+ * Remaining events are flushed when the application shuts down.
+ */
+@Slf4j
+@Component
+public class AuditLogWriter {
+
+    /**
+     * What to do with a new event when the buffer is full.
+     */
+    public enum BackpressurePolicy {
+        // Wait on the request thread until the writer frees a slot
+        BLOCK,
+        // Discard the oldest queued event to make room
+        DROP_OLDEST,
+        // Insert the event synchronously on the request thread
+        SYNC
+    }
+
+    private static final String INSERT_SQL =
+            "INSERT INTO logdto (id, date, action, subject, object, path) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceIdAllocator idAllocator;
+    private final BoundedRingBuffer<LogDTO> buffer;
+    private final BackpressurePolicy policy;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final AtomicLong failedEvents = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private volatile long lastFlushNanos;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public AuditLogWriter(JdbcTemplate jdbcTemplate,
+                          SequenceIdAllocator idAllocator,
+                          @Value("${account.audit.writer.capacity:8192}") int capacity,
+                          @Value("${account.audit.writer.batch-size:500}") int batchSize,
+                          @Value("${account.audit.writer.flush-interval:PT0.2S}") Duration flushInterval,
+                          @Value("${account.audit.writer.backpressure:SYNC}") BackpressurePolicy policy) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = idAllocator;
+        this.buffer = new BoundedRingBuffer<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.policy = policy;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::drainLoop, "audit-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    // Flush everything that is still queued before the data source goes away
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        drainAll();
+    }
+
+    public void submit(LogDTO entry) {
+        if (!running) {
+            insert(List.of(entry));
+            return;
+        }
+
+        while (!buffer.offer(entry)) {
+            switch (policy) {
+                case BLOCK -> {
+                    if (!running) {
+                        insert(List.of(entry));
+                        return;
+                    }
+                    LockSupport.unpark(writerThread);
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+                }
+                case DROP_OLDEST -> {
+                    if (buffer.poll() != null) {
+                        droppedEvents.incrementAndGet();
+                    }
+                }
+                case SYNC -> {
+                    insert(List.of(entry));
+                    return;
+                }
+            }
+        }
+
+        // Wake the writer early once a full batch is waiting
+        if (buffer.size() >= batchSize) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    private void drainLoop() {
+        List<LogDTO> batch = new ArrayList<>(batchSize);
+        long batchStarted = 0;
+
+        while (running) {
+            LogDTO entry = buffer.poll();
+            if (entry != null) {
+                if (batch.isEmpty()) {
+                    batchStarted = System.nanoTime();
+                }
+                batch.add(entry);
+                if (batch.size() >= batchSize) {
+                    flush(batch);
+                }
+                continue;
+            }
+
+            // Buffer is empty, flush a partial batch once the time window has passed
+            if (!batch.isEmpty()) {
+                long waited = System.nanoTime() - batchStarted;
+                if (waited >= flushIntervalNanos) {
+                    flush(batch);
+                } else {
+                    LockSupport.parkNanos(flushIntervalNanos - waited);
+                }
+            } else {
+                LockSupport.parkNanos(flushIntervalNanos);
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+    }
+
+    private void drainAll() {
+        List<LogDTO> batch = new ArrayList<>(batchSize);
+        LogDTO entry;
+        while ((entry = buffer.poll()) != null) {
+            batch.add(entry);
+            if (batch.size() >= batchSize) {
+                flush(batch);
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+    }
+
+    private void flush(List<LogDTO> batch) {
+        long started = System.nanoTime();
+        insert(batch);
+        long elapsed = System.nanoTime() - started;
+
+        lastFlushNanos = elapsed;
+        totalFlushNanos.addAndGet(elapsed);
+        flushCount.incrementAndGet();
+        batch.clear();
+    }
+
+    private void insert(List<LogDTO> logs) {
+        try {
+            long[] ids = idAllocator.allocate("logdto_seq", logs.size());
+            for (int i = 0; i < ids.length; i++) {
+                logs.get(i).setId(ids[i]);
+            }
+
+            jdbcTemplate.batchUpdate(INSERT_SQL, logs, logs.size(), (ps, entry) -> {
+                ps.setLong(1, entry.getId());
+                ps.setTimestamp(2, entry.getDate() != null ? Timestamp.valueOf(entry.getDate()) : null);
+                ps.setString(3, entry.getAction());
+                ps.setString(4, entry.getSubject());
+                ps.setString(5, entry.getObject());
+                ps.setString(6, entry.getPath());
+            });
+        } catch (RuntimeException e) {
+            // Never let audit failures break the writer thread or the request
+            failedEvents.addAndGet(logs.size());
+            log.error("Failed to write {} audit log(s)", logs.size(), e);
+        }
+    }
+
+    public int getQueueDepth() {
+        return buffer.size();
+    }
+
+    public int getCapacity() {
+        return buffer.capacity();
+    }
+
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    public long getFailedEvents() {
+        return failedEvents.get();
+    }
+
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    public Duration getLastFlushLatency() {
+        return Duration.ofNanos(lastFlushNanos);
+    }
+
+    public Duration getTotalFlushTime() {
+        return Duration.ofNanos(totalFlushNanos.get());
+    }
+
+    public Duration getAverageFlushLatency() {
+        long count = flushCount.get();
+        return count == 0 ? Duration.ZERO : Duration.ofNanos(totalFlushNanos.get() / count);
+    }
+}
@@ -1,15 +1,17 @@
 package account.event;
 
+import account.config.TokenVersionRegistry;
+import account.config.VerifiedCredentialCache;
 import account.model.AppUser;
-import account.model.LoginAttempt;
 import account.repository.AppUserRepository;
-import account.repository.LoginAttemptRepository;
 import  jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.LockedException;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.authentication.AuthenticationFailureHandler;
 import org.springframework.stereotype.Component;
@@ -21,12 +23,45 @@ import java.util.Map;
 import static account.event.util.EventUtil.*;
 
 @Component
-@RequiredArgsConstructor
 public class CustomAuthenticationFailureHandler implements AuthenticationFailureHandler {
 
     private final UserEventPublisher publisher;
-    private final LoginAttemptRepository attemptRepository;
+    private final LoginAttemptTracker attemptTracker;
     private final AppUserRepository appUserRepository;
+    private final VerifiedCredentialCache credentialCache;
+    private final TokenVersionRegistry tokenVersions;
+    private final Counter blockedFailures;
+    private final Counter badCredentialsFailures;
+    private final Counter bruteForceAttempts;
+    private final Counter lockouts;
+
+    public CustomAuthenticationFailureHandler(UserEventPublisher publisher,
+                                              LoginAttemptTracker attemptTracker,
+                                              AppUserRepository appUserRepository,
+                                              VerifiedCredentialCache credentialCache,
+                                              TokenVersionRegistry tokenVersions,
+                                              MeterRegistry meterRegistry) {
+        this.publisher = publisher;
+        this.attemptTracker = attemptTracker;
+        this.appUserRepository = appUserRepository;
+        this.credentialCache = credentialCache;
+        this.tokenVersions = tokenVersions;
+        this.blockedFailures = failureCounter(meterRegistry, "blocked");
+        this.badCredentialsFailures = failureCounter(meterRegistry, "bad_credentials");
+        this.bruteForceAttempts = Counter.builder("account.login.brute_force")
+                .description("Accounts that exceeded the allowed number of failed logins")
+                .register(meterRegistry);
+        this.lockouts = Counter.builder("account.login.lockouts")
+                .description("Accounts locked after too many failed logins")
+                .register(meterRegistry);
+    }
+
+    private static Counter failureCounter(MeterRegistry registry, String reason) {
+        return Counter.builder("account.login.failures")
+                .description("Rejected logins, by reason")
+                .tag("reason", reason)
+                .register(registry);
+    }
 
     @Override
     public void onAuthenticationFailure(HttpServletRequest request, HttpServletResponse response,
@@ -60,37 +95,41 @@ public class CustomAuthenticationFailureHandler implements AuthenticationFailure
         }
 
         // Don't record blocked user logins
-        if (email.matches(".+@acme.com") && appUserRepository.findByEmailIgnoreCase(email).isBlocked()) {
+        // Locked accounts are rejected with LockedException before their password is checked
+        if (exception instanceof LockedException) {
+            blockedFailures.increment();
             response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "User account is blocked");
             return;
         }
 
         publisher.publishEvent("LOGIN_FAILED", email, path, path);
-
-        // Save failed attempt
-        attemptRepository.save(new LoginAttempt(email, false));
+        badCredentialsFailures.increment();
 
         // Prevent brute-force attack
-        // Count failed attempts
-        long failedAttempts = attemptRepository.countByEmailAndSuccessFalse(email);
+        // Count failed attempts in memory, the database is only touched when the user gets locked
+        int failedAttempts = attemptTracker.recordFailure(email);
 
         // If failed attempts exceed threshold, block user
-        if (failedAttempts > 5) {
+        if (attemptTracker.isOverLimit(failedAttempts)) {
             AppUser user = appUserRepository.findByEmailIgnoreCase(email);
             if (user != null) {
                 // Block user
                 user.setBlocked(true);
                 appUserRepository.save(user);
+                credentialCache.evictUserAfterCommit(email);
+                tokenVersions.bump(email);
 
                 // Publish brute force and lock user events
-                publisher.publishEvent("BRUTE_FORCE", email, path, path);
+                publisher.publishEvent("BRUTE_FORCE", email, path, path, email);
+                bruteForceAttempts.increment();
 
                 // Prevent locking admin account
                 if (user.getRoleNames().contains("ROLE_ADMINISTRATOR")) {
                     throw new BadCredentialsException("Can't lock the ADMINISTRATOR!");
                 }
 
-                publisher.publishEvent("LOCK_USER", email, "Lock user " + email, path);
+                publisher.publishEvent("LOCK_USER", email, "Lock user " + email, path, email);
+                lockouts.increment();
 
                 // Provide a specific message when blocking the user
                 response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "User blocked due to too many failed login attempts");
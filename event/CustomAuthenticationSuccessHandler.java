@@ -1,6 +1,5 @@
 package account.event;
 
-import account.repository.LoginAttemptRepository;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -16,13 +15,12 @@ import java.io.IOException;
 @RequiredArgsConstructor
 public class CustomAuthenticationSuccessHandler implements AuthenticationSuccessHandler {
 
-    private final LoginAttemptRepository attemptRepository;
+    private final LoginAttemptTracker attemptTracker;
 
     @Override
     public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response,
                                         Authentication authentication) throws IOException, ServletException {
         // If authentication succeeds clear consecutive failed attempts counter
-        String email = request.getParameter("email");
-        attemptRepository.deleteByEmail(email);
+        attemptTracker.reset(authentication.getName());
     }
 }
@@ -0,0 +1,239 @@
+package account.event;
+
+import account.model.LoginAttempt;
+import account.repository.AppUserRepository;
+import account.repository.LoginAttemptRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts failed logins per account in a sliding time window, entirely in memory.
+ * Each account keeps a lock-free ring with the timestamps of its most recent failures,
+ * and accounts live in a ConcurrentHashMap, so concurrent failures for different accounts
+ * never contend on a shared lock.
+ * Only existing accounts are tracked, so failures for made-up logins can't grow the map;
+ * those accounts couldn't be locked anyway.
+ * The state is snapshotted to the LoginAttempt table periodically and on shutdown,
+ * and restored from it on startup.
+ */
+@Slf4j
+@Component
+public class LoginAttemptTracker {
+
+    private static final String TRACKED_EMAIL_PATTERN = ".+@acme.com";
+
+    private final LoginAttemptRepository attemptRepository;
+    private final AppUserRepository appUserRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxFailures;
+    private final long windowMillis;
+    private final Duration snapshotInterval;
+
+    private final ConcurrentHashMap<String, FailureWindow> windows = new ConcurrentHashMap<>();
+    // Accounts changed since the last snapshot
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService scheduler;
+
+    public LoginAttemptTracker(LoginAttemptRepository attemptRepository,
+                               AppUserRepository appUserRepository,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${account.login.max-failures:5}") int maxFailures,
+                               @Value("${account.login.failure-window:PT1H}") Duration window,
+                               @Value("${account.login.snapshot-interval:PT30S}") Duration snapshotInterval) {
+        this.attemptRepository = attemptRepository;
+        this.appUserRepository = appUserRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.maxFailures = maxFailures;
+        this.windowMillis = window.toMillis();
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    @PostConstruct
+    public void start() {
+        restore();
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "login-attempt-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = snapshotInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::snapshotQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        snapshotQuietly();
+    }
+
+    /**
+     * Records a failed login.
+     *
+     * @param email the login used in the failed attempt
+     * @return number of failures in the current window, including this one, or 0 for an unknown account
+     */
+    public int recordFailure(String email) {
+        String key = normalize(email);
+        long now = System.currentTimeMillis();
+
+        // Already tracked accounts skip the lookup, unknown ones are never added
+        if (!windows.containsKey(key) && (!key.matches(TRACKED_EMAIL_PATTERN) || !appUserRepository.existsByEmail(key))) {
+            return 0;
+        }
+
+        int failures = windows.computeIfAbsent(key, k -> new FailureWindow(maxFailures + 1)).record(now, windowMillis);
+        dirty.add(key);
+        return failures;
+    }
+
+    // Returns true once the account exceeded the allowed number of failures
+    public boolean isOverLimit(int failures) {
+        return failures > maxFailures;
+    }
+
+    // Clears the failure counter, e.g. after a successful login or an unlock
+    public void reset(String email) {
+        if (email == null) {
+            return;
+        }
+        String key = normalize(email);
+        if (windows.remove(key) != null) {
+            dirty.add(key);
+        }
+    }
+
+    public int getTrackedAccounts() {
+        return windows.size();
+    }
+
+    private void restore() {
+        LocalDateTime since = LocalDateTime.now().minus(Duration.ofMillis(windowMillis));
+
+        for (LoginAttempt attempt : attemptRepository.findAllBySuccessFalseAndDateAfter(since)) {
+            long timestamp = attempt.getDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            windows.computeIfAbsent(normalize(attempt.getEmail()), k -> new FailureWindow(maxFailures + 1))
+                    .record(timestamp, windowMillis);
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            log.error("Failed to snapshot login attempts", e);
+        }
+    }
+
+    // Replace persisted failures of every changed account with its current window
+    void snapshot() {
+        long now = System.currentTimeMillis();
+
+        // Forget accounts without failures in the current window
+        windows.forEach((email, window) -> {
+            if (window.count(now, windowMillis) == 0 && windows.remove(email, window)) {
+                dirty.add(email);
+            }
+        });
+
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        Set<String> emails = new HashSet<>();
+        for (String email : dirty) {
+            dirty.remove(email);
+            if (email.matches(TRACKED_EMAIL_PATTERN)) {
+                emails.add(email);
+            }
+        }
+
+        List<LoginAttempt> attempts = new ArrayList<>();
+        for (String email : emails) {
+            FailureWindow window = windows.get(email);
+            if (window == null) {
+                continue;
+            }
+            for (long timestamp : window.timestamps(now, windowMillis)) {
+                LocalDateTime date = LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault());
+                attempts.add(new LoginAttempt(email, false, date));
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!emails.isEmpty()) {
+                    attemptRepository.deleteAllByEmailIn(emails);
+                }
+                attemptRepository.saveAll(attempts);
+            });
+        } catch (RuntimeException e) {
+            // Keep the accounts for the next snapshot, their windows still hold the current state
+            dirty.addAll(emails);
+            throw e;
+        }
+    }
+
+    private static String normalize(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    // Ring of the last N failure timestamps of one account
+    private static final class FailureWindow {
+
+        private final AtomicLongArray timestamps;
+        private final AtomicInteger next = new AtomicInteger();
+
+        private FailureWindow(int size) {
+            this.timestamps = new AtomicLongArray(size);
+        }
+
+        private int record(long timestamp, long windowMillis) {
+            int slot = Math.floorMod(next.getAndIncrement(), timestamps.length());
+            timestamps.set(slot, timestamp);
+            return count(timestamp, windowMillis);
+        }
+
+        private int count(long now, long windowMillis) {
+            int count = 0;
+            for (int i = 0; i < timestamps.length(); i++) {
+                if (timestamps.get(i) > now - windowMillis) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        private List<Long> timestamps(long now, long windowMillis) {
+            List<Long> result = new ArrayList<>();
+            for (int i = 0; i < timestamps.length(); i++) {
+                long timestamp = timestamps.get(i);
+                if (timestamp > now - windowMillis) {
+                    result.add(timestamp);
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -16,14 +16,18 @@ public class UserActionEvent extends ApplicationEvent {
     private String subject;
     private String object;
     private String path;
+    // Email of the user account changed by the action, null if no account was changed
+    private String targetEmail;
 
-    public UserActionEvent(Object source, LocalDateTime date, String action, String subject, String object, String path) {
+    public UserActionEvent(Object source, LocalDateTime date, String action, String subject, String object, String path,
+                           String targetEmail) {
         super(source);
         this.date = date;
         this.action = action;
         this.subject = subject;
         this.object = object;
         this.path = path;
+        this.targetEmail = targetEmail;
     }
 
     public LogDTO getLog() {
@@ -1,19 +1,30 @@
 package account.event;
 
-import account.repository.LogsRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.TimeUnit;
+
 @Component
-@RequiredArgsConstructor
 public class UserEventListener {
 
-    private final LogsRepository logsRepository;
+    private final AuditLogWriter auditLogWriter;
+    private final Timer submitTimer;
+
+    public UserEventListener(AuditLogWriter auditLogWriter, MeterRegistry meterRegistry) {
+        this.auditLogWriter = auditLogWriter;
+        this.submitTimer = Timer.builder("account.audit.submit")
+                .description("Time spent on the request thread writing or queueing an audit log")
+                .register(meterRegistry);
+    }
 
-    // When event is published save log in repository
+    // When event is published hand the log over to the batching writer
     @EventListener
     public void onUserAction(UserActionEvent event) {
-        logsRepository.save(event.getLog());
+        long started = System.nanoTime();
+        auditLogWriter.submit(event.getLog());
+        submitTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
     }
 }
@@ -13,7 +13,12 @@ public class UserEventPublisher {
     private final ApplicationEventPublisher publisher;
 
     public void publishEvent(String action, String subject, String object, String path) {
+        publishEvent(action, subject, object, path, null);
+    }
+
+    // Event of an action that changed the account of targetEmail
+    public void publishEvent(String action, String subject, String object, String path, String targetEmail) {
         LocalDateTime date = LocalDateTime.now();
-        publisher.publishEvent(new UserActionEvent(this, date, action, subject, object, path));
+        publisher.publishEvent(new UserActionEvent(this, date, action, subject, object, path, targetEmail));
     }
 }
@@ -0,0 +1,113 @@
+package account.event.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded, lock-free multi-producer multi-consumer queue backed by a ring of slots.
+ * Every slot carries a sequence number telling producers and consumers whether the slot
+ * is free for the current lap, so neither side ever takes a lock.
+ *
+ * @param <E> type of the queued elements
+ */
+public class BoundedRingBuffer<E> {
+
+    private final int mask;
+    private final Object[] slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong enqueuePosition = new AtomicLong();
+    private final AtomicLong dequeuePosition = new AtomicLong();
+
+    /**
+     * @param capacity requested capacity, rounded up to the next power of two
+     */
+    public BoundedRingBuffer(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Capacity must be at least 2");
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.slots = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds an element if there is room.
+     *
+     * @return false if the buffer is full
+     */
+    public boolean offer(E element) {
+        long position = enqueuePosition.get();
+        int index;
+
+        while (true) {
+            index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+
+            if (difference == 0) {
+                // Slot is free in this lap, try to claim it
+                if (enqueuePosition.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = enqueuePosition.get();
+            } else if (difference < 0) {
+                // Slot still holds an element from the previous lap
+                return false;
+            } else {
+                position = enqueuePosition.get();
+            }
+        }
+
+        slots[index] = element;
+        // Publishing the sequence makes the element visible to consumers
+        sequences.set(index, position + 1);
+        return true;
+    }
+
+    /**
+     * Removes the oldest element.
+     *
+     * @return the element, or null if the buffer is empty
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long position = dequeuePosition.get();
+        int index;
+
+        while (true) {
+            index = (int) (position & mask);
+            long difference = sequences.get(index) - (position + 1);
+
+            if (difference == 0) {
+                if (dequeuePosition.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = dequeuePosition.get();
+            } else if (difference < 0) {
+                // Nothing has been published to this slot yet
+                return null;
+            } else {
+                position = dequeuePosition.get();
+            }
+        }
+
+        E element = (E) slots[index];
+        slots[index] = null;
+        // Release the slot for the next lap of producers
+        sequences.set(index, position + mask + 1);
+        return element;
+    }
+
+    // Approximate number of queued elements
+    public int size() {
+        long size = enqueuePosition.get() - dequeuePosition.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
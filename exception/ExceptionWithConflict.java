@@ -0,0 +1,11 @@
+package account.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ExceptionWithConflict extends RuntimeException {
+    public ExceptionWithConflict(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package account.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+public class ExceptionWithPayloadTooLarge extends RuntimeException {
+    public ExceptionWithPayloadTooLarge(String message) {
+        super(message);
+    }
+}
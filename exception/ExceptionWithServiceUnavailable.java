@@ -0,0 +1,11 @@
+package account.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ExceptionWithServiceUnavailable extends RuntimeException {
+    public ExceptionWithServiceUnavailable(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,26 @@
+package account.exception;
+
+import account.model.DTO.PaymentRowErrorDTO;
+
+import java.util.List;
+
+// Rejected payroll upload with errors reported per row
+public class PaymentUploadException extends ExceptionWithBadRequest {
+
+    private final List<PaymentRowErrorDTO> rowErrors;
+    private final long invalidRows;
+
+    public PaymentUploadException(String message, List<PaymentRowErrorDTO> rowErrors, long invalidRows) {
+        super(message);
+        this.rowErrors = rowErrors;
+        this.invalidRows = invalidRows;
+    }
+
+    public List<PaymentRowErrorDTO> getRowErrors() {
+        return rowErrors;
+    }
+
+    public long getInvalidRows() {
+        return invalidRows;
+    }
+}
@@ -0,0 +1,162 @@
+package account.loadtest;
+
+import account.model.Payments;
+import account.repository.PaymentsBatchRepository;
+import account.repository.SequenceIdAllocator;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static account.service.util.BusinessFunctionalityUtil.toPeriodString;
+
+/**
+ * Seeds users, payments and audit events with JDBC batches, bypassing the API and password hashing.
+ * Every seeded account shares one password, hashed once by the application's encoder.
+ */
+public class DatasetGenerator {
+
+    public static final String ADMIN = "admin@acme.com";
+    public static final int ACCOUNTANTS = 10;
+    public static final int AUDITORS = 10;
+
+    private static final int BATCH_SIZE = 10_000;
+    private static final int FIRST_YEAR = 2000;
+
+    private static final String INSERT_USER_SQL =
+            "INSERT INTO app_user (id, name, lastname, email, password, blocked) VALUES (?, ?, ?, ?, ?, FALSE)";
+    private static final String INSERT_EVENT_SQL =
+            "INSERT INTO logdto (id, date, action, subject, object, path) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String GRANT_ROLE_SQL =
+            "INSERT INTO user_roles (user_id, role_id) SELECT u.id, r.id FROM app_user u JOIN role r ON r.name = ? WHERE u.email LIKE ?";
+
+    private static final String[] ACTIONS = {"LOGIN_FAILED", "CREATE_USER", "GRANT_ROLE", "REMOVE_ROLE", "CHANGE_PASSWORD", "ACCESS_DENIED"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PaymentsBatchRepository paymentsBatchRepository;
+    private final SequenceIdAllocator idAllocator;
+    private final Random random;
+
+    public DatasetGenerator(JdbcTemplate jdbcTemplate, PaymentsBatchRepository paymentsBatchRepository,
+                            SequenceIdAllocator idAllocator, long seed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.paymentsBatchRepository = paymentsBatchRepository;
+        this.idAllocator = idAllocator;
+        this.random = new Random(seed);
+    }
+
+    public static String employee(int index) {
+        return "user" + index + "@acme.com";
+    }
+
+    public static String accountant(int index) {
+        return "accountant" + index + "@acme.com";
+    }
+
+    public static String auditor(int index) {
+        return "auditor" + index + "@acme.com";
+    }
+
+    // Period of the n-th month of an employee's payment history
+    public static String period(int month) {
+        return toPeriodString((FIRST_YEAR + month / 12) * 100 + month % 12 + 1);
+    }
+
+    public void seedUsers(int employees, String passwordHash) {
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        batch.add(new Object[]{"Admin", "Load", ADMIN, passwordHash});
+        for (int i = 0; i < ACCOUNTANTS; i++) {
+            batch.add(new Object[]{"Accountant", "Load" + i, accountant(i), passwordHash});
+        }
+        for (int i = 0; i < AUDITORS; i++) {
+            batch.add(new Object[]{"Auditor", "Load" + i, auditor(i), passwordHash});
+        }
+
+        for (int i = 0; i < employees; i++) {
+            batch.add(new Object[]{"Employee", "Load" + i, employee(i), passwordHash});
+            if (batch.size() == BATCH_SIZE) {
+                insertWithIds(INSERT_USER_SQL, "app_user_seq", batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            insertWithIds(INSERT_USER_SQL, "app_user_seq", batch);
+        }
+
+        jdbcTemplate.update(GRANT_ROLE_SQL, "ROLE_ADMINISTRATOR", ADMIN);
+        jdbcTemplate.update(GRANT_ROLE_SQL, "ROLE_ACCOUNTANT", "accountant%@acme.com");
+        jdbcTemplate.update(GRANT_ROLE_SQL, "ROLE_AUDITOR", "auditor%@acme.com");
+        jdbcTemplate.update(GRANT_ROLE_SQL, "ROLE_USER", "user%@acme.com");
+    }
+
+    // Spread payments evenly, each employee gets consecutive months starting from January of FIRST_YEAR
+    // Returns the number of months of the longest history
+    public int seedPayments(int employees, long total) {
+        int months = (int) ((total + employees - 1) / employees);
+
+        // Payments reference employees by id
+        Map<String, Long> userIds = new HashMap<>();
+        jdbcTemplate.query("SELECT email, id FROM app_user WHERE email LIKE 'user%@acme.com'",
+                rs -> {
+                    userIds.put(rs.getString(1), rs.getLong(2));
+                });
+
+        List<Payments> batch = new ArrayList<>(BATCH_SIZE);
+        long seeded = 0;
+        for (int month = 0; month < months && seeded < total; month++) {
+            String period = period(month);
+            for (int i = 0; i < employees && seeded < total; i++, seeded++) {
+                Payments payment = new Payments(employee(i), period, 100_000L + random.nextInt(900_000));
+                payment.setUserId(userIds.get(employee(i)));
+                batch.add(payment);
+                if (batch.size() == BATCH_SIZE) {
+                    paymentsBatchRepository.insertAll(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            paymentsBatchRepository.insertAll(batch);
+        }
+        return months;
+    }
+
+    public void seedEvents(int employees, long total) {
+        LocalDateTime start = LocalDateTime.now().minusDays(365);
+        long stepMillis = Math.max(1, 365L * 24 * 3600 * 1000 / Math.max(1, total));
+
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (long i = 0; i < total; i++) {
+            String action = ACTIONS[random.nextInt(ACTIONS.length)];
+            String subject = employee(random.nextInt(employees));
+            Timestamp date = Timestamp.valueOf(start.plusNanos(i * stepMillis * 1_000_000));
+            batch.add(new Object[]{date, action, subject, "/api/empl/payment", "/api/empl/payment"});
+            if (batch.size() == BATCH_SIZE) {
+                insertWithIds(INSERT_EVENT_SQL, "logdto_seq", batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            insertWithIds(INSERT_EVENT_SQL, "logdto_seq", batch);
+        }
+    }
+
+    // Prepend ids from the entity sequence, which has no column default to fall back on
+    private void insertWithIds(String sql, String sequence, List<Object[]> rows) {
+        long[] ids = idAllocator.allocate(sequence, rows.size());
+        List<Object[]> args = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Object[] row = rows.get(i);
+            Object[] withId = new Object[row.length + 1];
+            withId[0] = ids[i];
+            System.arraycopy(row, 0, withId, 1, row.length);
+            args.add(withId);
+        }
+        jdbcTemplate.batchUpdate(sql, args);
+    }
+}
@@ -0,0 +1,38 @@
+package account.loadtest;
+
+import java.time.Duration;
+
+/**
+ * Settings of a load test run, read from system properties, e.g. {@code -Dloadtest.users=10000}.
+ *
+ * @param users number of seeded employees
+ * @param payments number of seeded payments, spread evenly over the employees
+ * @param events number of seeded audit events
+ * @param threads number of concurrent clients
+ * @param duration how long traffic is driven, after the warmup
+ * @param warmup traffic driven before measuring starts
+ * @param seed seed of every random choice, so runs are reproducible
+ * @param rateLimit whether the request rate limiter stays enabled
+ * @param virtualThreads whether requests are handled on virtual threads
+ */
+public record LoadTestConfig(int users, long payments, long events, int threads,
+                             Duration duration, Duration warmup, long seed, boolean rateLimit,
+                             boolean virtualThreads) {
+
+    public static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig(
+                Integer.getInteger("loadtest.users", 100_000),
+                Long.getLong("loadtest.payments", 10_000_000L),
+                Long.getLong("loadtest.events", 5_000_000L),
+                Integer.getInteger("loadtest.threads", 64),
+                Duration.parse(System.getProperty("loadtest.duration", "PT2M")),
+                Duration.parse(System.getProperty("loadtest.warmup", "PT20S")),
+                Long.getLong("loadtest.seed", 42L),
+                Boolean.getBoolean("loadtest.rate-limit"),
+                Boolean.getBoolean("loadtest.virtual-threads"));
+    }
+
+    public LoadTestConfig withVirtualThreads(boolean enabled) {
+        return new LoadTestConfig(users, payments, events, threads, duration, warmup, seed, rateLimit, enabled);
+    }
+}
@@ -0,0 +1,108 @@
+package account.loadtest;
+
+import account.AccountServiceApplication;
+import account.repository.PaymentsBatchRepository;
+import account.repository.SequenceIdAllocator;
+import account.service.PayrollAggregateService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Boots the application against an in-memory H2 database, seeds a synthetic dataset and
+ * drives mixed traffic, then prints latency percentiles and throughput per scenario.
+ *
+ * <p>Sizes and durations come from system properties, see {@link LoadTestConfig}. Example:
+ * {@code java -Xmx8g -Dloadtest.users=100000 -Dloadtest.payments=10000000 -Dloadtest.events=5000000 account.loadtest.LoadTestRunner}
+ */
+public class LoadTestRunner {
+
+    // Shared by all seeded and signed up accounts, long enough and not in the breached password list
+    private static final String PASSWORD = "LoadTestSecret-2024";
+
+    public static void main(String[] args) throws InterruptedException {
+        execute(LoadTestConfig.fromSystemProperties(), "loadtest");
+    }
+
+    // Boots a fresh application with its own database, seeds it and measures traffic
+    public static Map<TrafficDriver.Scenario, TrafficDriver.Stats> execute(LoadTestConfig config, String databaseName)
+            throws InterruptedException {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(AccountServiceApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:" + databaseName,
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        "account.rate-limit.enabled=" + config.rateLimit(),
+                        "account.threads.virtual=" + config.virtualThreads(),
+                        "logging.level.root=WARN")
+                .run();
+
+        try {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            int seededMonths = seed(context, config);
+
+            TrafficDriver driver = new TrafficDriver(baseUrl, config, PASSWORD, seededMonths);
+            System.out.printf("Warming up for %s with %d clients%n", config.warmup(), config.threads());
+            driver.run(config.warmup());
+
+            System.out.printf("Measuring for %s with %d clients%n", config.duration(), config.threads());
+            Map<TrafficDriver.Scenario, TrafficDriver.Stats> stats = driver.run(config.duration());
+            report(stats, config.duration());
+            return stats;
+        } finally {
+            context.close();
+        }
+    }
+
+    private static int seed(ConfigurableApplicationContext context, LoadTestConfig config) {
+        DatasetGenerator generator = new DatasetGenerator(context.getBean(JdbcTemplate.class),
+                context.getBean(PaymentsBatchRepository.class), context.getBean(SequenceIdAllocator.class), config.seed());
+        String passwordHash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+
+        long started = System.nanoTime();
+        generator.seedUsers(config.users(), passwordHash);
+        System.out.printf("Seeded %d users in %s%n", config.users(), since(started));
+
+        started = System.nanoTime();
+        int months = generator.seedPayments(config.users(), config.payments());
+        context.getBean(PayrollAggregateService.class).rebuild();
+        System.out.printf("Seeded %d payments in %s%n", config.payments(), since(started));
+
+        started = System.nanoTime();
+        generator.seedEvents(config.users(), config.events());
+        System.out.printf("Seeded %d audit events in %s%n", config.events(), since(started));
+        return months;
+    }
+
+    static void report(Map<TrafficDriver.Scenario, TrafficDriver.Stats> stats, Duration duration) {
+        double seconds = duration.toMillis() / 1000.0;
+
+        System.out.printf("%n%-16s %10s %10s %10s %10s %10s %10s  %s%n",
+                "scenario", "requests", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "statuses");
+        stats.forEach((scenario, scenarioStats) -> {
+            LatencyHistogram latency = scenarioStats.getLatency();
+
+            Map<Integer, Long> statuses = new TreeMap<>();
+            scenarioStats.getStatuses().forEach((status, count) -> statuses.put(status, count.sum()));
+
+            System.out.printf("%-16s %10d %10.1f %10.2f %10.2f %10.2f %10.2f  %s%n",
+                    scenario,
+                    latency.count(),
+                    latency.count() / seconds,
+                    latency.percentileMicros(0.50) / 1000.0,
+                    latency.percentileMicros(0.99) / 1000.0,
+                    latency.percentileMicros(0.999) / 1000.0,
+                    latency.maxMicros() / 1000.0,
+                    statuses);
+        });
+    }
+
+    private static Duration since(long startedNanos) {
+        return Duration.ofNanos(System.nanoTime() - startedNanos);
+    }
+}
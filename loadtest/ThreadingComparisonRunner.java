@@ -0,0 +1,42 @@
+package account.loadtest;
+
+import java.util.Map;
+
+/**
+ * Runs the same load test with platform thread-per-request handling and with virtual threads,
+ * each against a freshly seeded database, and prints both reports one after the other.
+ *
+ * <p>Takes the same system properties as {@link LoadTestRunner}. A client count well above the
+ * Tomcat worker pool (200 by default), e.g. {@code -Dloadtest.threads=800}, shows the difference
+ * once requests queue for worker threads.
+ */
+public class ThreadingComparisonRunner {
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+
+        System.out.println("=== Platform threads ===");
+        Map<TrafficDriver.Scenario, TrafficDriver.Stats> platform =
+                LoadTestRunner.execute(config.withVirtualThreads(false), "loadtest-platform");
+
+        System.out.println("=== Virtual threads ===");
+        Map<TrafficDriver.Scenario, TrafficDriver.Stats> virtual =
+                LoadTestRunner.execute(config.withVirtualThreads(true), "loadtest-virtual");
+
+        System.out.println();
+        System.out.printf("%-16s %14s %14s %14s %14s%n", "scenario", "platform req/s", "virtual req/s",
+                "platform p99", "virtual p99");
+        platform.forEach((scenario, stats) -> {
+            LatencyHistogram platformLatency = stats.getLatency();
+            LatencyHistogram virtualLatency = virtual.get(scenario).getLatency();
+            double seconds = config.duration().toMillis() / 1000.0;
+
+            System.out.printf("%-16s %14.1f %14.1f %12.2fms %12.2fms%n",
+                    scenario,
+                    platformLatency.count() / seconds,
+                    virtualLatency.count() / seconds,
+                    platformLatency.percentileMicros(0.99) / 1000.0,
+                    virtualLatency.percentileMicros(0.99) / 1000.0);
+        });
+    }
+}
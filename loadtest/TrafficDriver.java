@@ -0,0 +1,228 @@
+package account.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static account.loadtest.DatasetGenerator.*;
+
+/**
+ * Drives a weighted mix of requests from a fixed number of closed-loop clients and records
+ * latency and status codes per scenario.
+ */
+public class TrafficDriver {
+
+    /**
+     * Kind of request sent by a client, with its share of the traffic in percent.
+     */
+    public enum Scenario {
+        SIGNUP(2),
+        PAYMENT_READ(55),
+        PAYMENT_UPLOAD(5),
+        ROLE_CHANGE(3),
+        EVENT_READ(10),
+        FAILED_LOGIN(25);
+
+        private final int weight;
+
+        Scenario(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Measurements of one scenario.
+     */
+    public static class Stats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public Map<Integer, LongAdder> getStatuses() {
+            return statuses;
+        }
+    }
+
+    private static final int UPLOAD_BATCH = 12;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final String baseUrl;
+    private final LoadTestConfig config;
+    private final String password;
+    private final int seededMonths;
+
+    // Employees at the end of the range are targets of failed-login storms and get locked, the rest is read
+    private final int readableEmployees;
+    private final int stormVictims;
+
+    private final AtomicLong signups = new AtomicLong();
+    private final AtomicLong uploads = new AtomicLong();
+
+    public TrafficDriver(String baseUrl, LoadTestConfig config, String password, int seededMonths) {
+        this.baseUrl = baseUrl;
+        this.config = config;
+        this.password = password;
+        this.seededMonths = seededMonths;
+        this.stormVictims = Math.max(1, config.users() / 100);
+        this.readableEmployees = Math.max(1, config.users() - stormVictims);
+    }
+
+    /**
+     * Sends requests for the given time and returns the measurements of every scenario.
+     */
+    public Map<Scenario, Stats> run(Duration duration) throws InterruptedException {
+        Map<Scenario, Stats> stats = new EnumMap<>(Scenario.class);
+        for (Scenario scenario : Scenario.values()) {
+            stats.put(scenario, new Stats());
+        }
+
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService clients = Executors.newFixedThreadPool(config.threads());
+        for (int i = 0; i < config.threads(); i++) {
+            Random random = new Random(config.seed() * 31 + i);
+            clients.execute(() -> {
+                while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+                    Scenario scenario = pick(random);
+                    send(scenario, random, stats.get(scenario));
+                }
+            });
+        }
+
+        clients.shutdown();
+        if (!clients.awaitTermination(duration.toMillis() + 60_000, TimeUnit.MILLISECONDS)) {
+            clients.shutdownNow();
+        }
+        return stats;
+    }
+
+    private Scenario pick(Random random) {
+        int roll = random.nextInt(100);
+        for (Scenario scenario : Scenario.values()) {
+            roll -= scenario.weight;
+            if (roll < 0) {
+                return scenario;
+            }
+        }
+        return Scenario.PAYMENT_READ;
+    }
+
+    private void send(Scenario scenario, Random random, Stats stats) {
+        HttpRequest request;
+        try {
+            request = build(scenario, random);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        long started = System.nanoTime();
+        int status;
+        try {
+            status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            // Connection errors are reported as status 0
+            status = 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        stats.latency.recordNanos(System.nanoTime() - started);
+        stats.statuses.computeIfAbsent(status, k -> new LongAdder()).increment();
+    }
+
+    private HttpRequest build(Scenario scenario, Random random) throws IOException {
+        return switch (scenario) {
+            case SIGNUP -> {
+                Map<String, Object> body = new LinkedHashMap<>();
+                body.put("name", "Signup");
+                body.put("lastname", "Load");
+                body.put("email", "signup" + signups.getAndIncrement() + "@acme.com");
+                body.put("password", password);
+                yield post("/api/auth/signup", null, body);
+            }
+            case PAYMENT_READ -> get("/api/empl/payment", employee(random.nextInt(readableEmployees)), password);
+            case PAYMENT_UPLOAD -> {
+                // Every upload gets months no other upload uses, so it never collides with existing payments
+                long upload = uploads.getAndIncrement();
+                int employee = (int) (upload % readableEmployees);
+                int firstMonth = seededMonths + (int) (upload / readableEmployees) * UPLOAD_BATCH;
+
+                List<Map<String, Object>> body = new ArrayList<>(UPLOAD_BATCH);
+                for (int i = 0; i < UPLOAD_BATCH; i++) {
+                    Map<String, Object> payment = new LinkedHashMap<>();
+                    payment.put("employee", employee(employee));
+                    payment.put("period", period(firstMonth + i));
+                    payment.put("salary", 100_000L + random.nextInt(900_000));
+                    body.add(payment);
+                }
+                yield post("/api/acct/payments", accountant(random.nextInt(ACCOUNTANTS)), body);
+            }
+            case ROLE_CHANGE -> {
+                Map<String, Object> body = new LinkedHashMap<>();
+                body.put("user", employee(random.nextInt(readableEmployees)));
+                body.put("role", "ACCOUNTANT");
+                body.put("operation", random.nextBoolean() ? "GRANT" : "REMOVE");
+                yield put("/api/admin/user/role", ADMIN, body);
+            }
+            case EVENT_READ -> get("/api/security/events/?limit=100", auditor(random.nextInt(AUDITORS)), password);
+            case FAILED_LOGIN -> get("/api/empl/payment",
+                    employee(readableEmployees + random.nextInt(stormVictims)), "WrongPassword" + random.nextInt());
+        };
+    }
+
+    private HttpRequest get(String path, String email, String secret) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", basic(email, secret))
+                .GET()
+                .build();
+    }
+
+    private HttpRequest post(String path, String email, Object body) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        if (email != null) {
+            builder.header("Authorization", basic(email, password));
+        }
+        return builder.build();
+    }
+
+    private HttpRequest put(String path, String email, Object body) throws IOException {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .header("Authorization", basic(email, password))
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+    }
+
+    private static String basic(String email, String secret) {
+        String credentials = email + ":" + secret;
+        return "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+    }
+}
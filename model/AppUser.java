@@ -1,5 +1,6 @@
 package account.model;
 
+import account.repository.SequenceIdAllocator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
@@ -26,7 +27,8 @@ import java.util.stream.Collectors;
 public class AppUser implements Comparable<AppUser> {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "app_user_seq")
+    @SequenceGenerator(name = "app_user_seq", sequenceName = "app_user_seq", allocationSize = SequenceIdAllocator.ALLOCATION_SIZE)
     private long id;
 
     @NotBlank
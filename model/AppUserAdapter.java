@@ -1,35 +1,52 @@
 package account.model;
 
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.stream.Collectors;
 
+// Immutable snapshot of AppUser taken when it is loaded for authentication
+// Safe to cache and share between requests as it never changes after construction
 public class AppUserAdapter implements UserDetails {
 
-    private final AppUser user;
+    private final long id;
+    private final String name;
+    private final String lastname;
+    private final String email;
+    private final String password;
+    private final boolean blocked;
+    private final List<GrantedAuthority> authorities;
 
     public AppUserAdapter(AppUser user) {
-        this.user = user;
+        this.id = user.getId();
+        this.name = user.getName();
+        this.lastname = user.getLastname();
+        this.email = user.getEmail();
+        this.password = user.getPassword();
+        this.blocked = user.isBlocked();
+
+        // When fetching Authorities make sure that we are only fetching Role names and storing them in List of Strings
+        this.authorities = user.getRoles().stream()
+                .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(role.getName()))
+                .collect(Collectors.toUnmodifiableList());
     }
 
-    // When fetching Authorities make sure that we are only fetching Role names and storing them in List of Strings
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return user.getRoles().stream()
-                .map(role -> (GrantedAuthority) role::getName)
-                .collect(Collectors.toList());
+        return authorities;
     }
 
     @Override
     public String getPassword() {
-        return user.getPassword();
+        return password;
     }
 
     @Override
     public String getUsername() {
-        return user.getEmail();
+        return email;
     }
 
     @Override
@@ -39,7 +56,7 @@ public class AppUserAdapter implements UserDetails {
 
     @Override
     public boolean isAccountNonLocked() {
-        return !user.isBlocked();  // Blocked users will return false
+        return !blocked;  // Blocked users will return false
     }
 
     @Override
@@ -52,7 +69,19 @@ public class AppUserAdapter implements UserDetails {
         return true;
     }
 
-    public AppUser getAppUser() {
-        return user;
+    public long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getLastname() {
+        return lastname;
+    }
+
+    public String getEmail() {
+        return email;
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package account.model.DTO;
 
+import account.repository.SequenceIdAllocator;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
@@ -9,13 +10,21 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_log_action_id", columnList = "action, id"),
+        @Index(name = "idx_log_subject_id", columnList = "subject, id"),
+        @Index(name = "idx_log_subject_action_id", columnList = "subject, action, id"),
+        @Index(name = "idx_log_path_id", columnList = "path, id"),
+        @Index(name = "idx_log_date_id", columnList = "date, id")
+})
 @Data
 @NoArgsConstructor
 @JsonPropertyOrder({"id", "date", "action", "subject", "object", "path"})
 public class LogDTO {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "logdto_seq")
+    @SequenceGenerator(name = "logdto_seq", sequenceName = "logdto_seq", allocationSize = SequenceIdAllocator.ALLOCATION_SIZE)
     private Long id;
 
     @Temporal(TemporalType.TIMESTAMP)
@@ -0,0 +1,22 @@
+package account.model.DTO;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@JsonPropertyOrder({"row", "employee", "period", "errors"})
+public class PaymentRowErrorDTO {
+
+    // Zero-based position of the payment in the uploaded array
+    private long row;
+
+    private String employee;
+
+    private String period;
+
+    private List<String> errors;
+}
@@ -4,9 +4,6 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-
 @Data
 @AllArgsConstructor
 public class SalaryInformationDTO implements Comparable<SalaryInformationDTO> {
@@ -16,7 +13,7 @@ public class SalaryInformationDTO implements Comparable<SalaryInformationDTO> {
     private String lastname;
 
     @JsonIgnore
-    private String periodNumericMonth; // Field used only for comparison
+    private int periodKey; // Integer yyyyMM key used only for comparison
 
     private String period;
 
@@ -24,14 +21,7 @@ public class SalaryInformationDTO implements Comparable<SalaryInformationDTO> {
 
     @Override
     public int compareTo(SalaryInformationDTO other) {
-        // Prepare formatter of correct pattern
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
-
-        // Convert DTO objects' period to LocalDate
-        LocalDate thisDate = LocalDate.parse("01-" + periodNumericMonth, formatter);
-        LocalDate otherDate = LocalDate.parse("01-" + other.periodNumericMonth, formatter);
-
-        // Sort in descending order by ensuring that other date is compared to this date, not reverse
-        return otherDate.compareTo(thisDate);
+        // Sort in descending order by ensuring that other period is compared to this period, not reverse
+        return Integer.compare(other.periodKey, periodKey);
     }
-}
\ No newline at end of file
+}
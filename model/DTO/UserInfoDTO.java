@@ -0,0 +1,25 @@
+package account.model.DTO;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+// Projection of AppUser for the admin user listing, serialized like AppUser itself
+@Data
+@AllArgsConstructor
+@JsonPropertyOrder({"id", "name", "lastname", "email", "roles"})
+public class UserInfoDTO {
+
+    private long id;
+
+    private String name;
+
+    private String lastname;
+
+    private String email;
+
+    // Role names in ascending order, as read from the database
+    private List<String> roles;
+}
@@ -0,0 +1,39 @@
+package account.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+// Materialized year-to-date payroll sums of one employee, maintained together with the payments
+@Entity
+@IdClass(EmployeeYearTotal.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmployeeYearTotal {
+
+    // Id of the employee in app_user, same key as Payments.userId
+    @Id
+    private long userId;
+
+    // Named to avoid the YEAR keyword of the database
+    @Id
+    private int payYear;
+
+    private long totalSalary;
+
+    private long payments;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private long userId;
+        private int payYear;
+    }
+}
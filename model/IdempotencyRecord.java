@@ -0,0 +1,60 @@
+package account.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+// Outcome of a payroll upload sent with an Idempotency-Key header, replayed to retries of the same upload
+// Keys are scoped to the accountant, so accountants can't collide with or probe each other's keys
+@Entity
+@IdClass(IdempotencyRecord.Key.class)
+@Table(indexes = @Index(name = "idx_idempotency_record_expires_at", columnList = "expiresAt"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    // Lower-cased email of the accountant who sent the upload
+    @Id
+    private String owner;
+
+    @Id
+    private String idempotencyKey;
+
+    // Random id of the request currently running the upload, only that request may complete the key
+    private String leaseId;
+
+    // An upload still in progress after this time is presumed dead and its key can be taken over
+    private LocalDateTime lockedUntil;
+
+    // Hex encoded SHA-256 of the request body, known once the upload completed
+    private String fingerprint;
+
+    private boolean completed;
+
+    private int responseStatus;
+
+    @Lob
+    private String responseBody;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime expiresAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String owner;
+        private String idempotencyKey;
+    }
+}
@@ -1,5 +1,6 @@
 package account.model;
 
+import account.repository.SequenceIdAllocator;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
@@ -7,13 +8,17 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 @Entity
+@Table(indexes = @Index(name = "idx_login_attempt_email", columnList = "email"))
 @Data
 @NoArgsConstructor
 public class LoginAttempt {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "login_attempt_seq")
+    @SequenceGenerator(name = "login_attempt_seq", sequenceName = "login_attempt_seq", allocationSize = SequenceIdAllocator.ALLOCATION_SIZE)
     private long id;
 
     @Pattern(regexp = ".+@acme.com")
@@ -21,8 +26,18 @@ public class LoginAttempt {
 
     private boolean success;
 
+    // Time of the attempt, used to restore sliding windows after restart
+    @Temporal(TemporalType.TIMESTAMP)
+    private LocalDateTime date;
+
     public LoginAttempt(String email, boolean success) {
         this.email = email;
         this.success = success;
     }
+
+    public LoginAttempt(String email, boolean success, LocalDateTime date) {
+        this.email = email;
+        this.success = success;
+        this.date = date;
+    }
 }
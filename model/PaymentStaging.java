@@ -0,0 +1,33 @@
+package account.model;
+
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Validated payment of a staged upload job, moved to payments once the whole upload is valid
+@Entity
+@Table(indexes = @Index(name = "idx_payment_staging_job", columnList = "jobId"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentStaging {
+
+    // Id the payment will have once moved, reserved from payments_seq while staging
+    @Id
+    private long id;
+
+    private String jobId;
+
+    private long userId;
+
+    // Stored as integer yyyyMM key, same as Payments.period
+    @Convert(converter = PeriodConverter.class)
+    private String period;
+
+    private long salary;
+}
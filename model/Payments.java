@@ -1,30 +1,67 @@
 package account.model;
 
+import account.repository.SequenceIdAllocator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import lombok.AllArgsConstructor;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import jakarta.persistence.UniqueConstraint;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Entity
+// One payment per user and period, the constraint also serves as the index of lookups by both
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_payments_user_period", columnNames = {"user_id", "period"}))
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 @JsonPropertyOrder({"employee", "period", "salary"})
 public class Payments {
 
     @Id
     @JsonIgnore
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payments_seq")
+    @SequenceGenerator(name = "payments_seq", sequenceName = "payments_seq", allocationSize = SequenceIdAllocator.ALLOCATION_SIZE)
     private long id;
 
+    // Owner of the payment, resolved from the employee email when a payment is uploaded
+    @JsonIgnore
+    @Column(name = "user_id", nullable = false)
+    private long userId;
+
+    // Only declares the foreign key to app_user, payments are read and written by userId
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", insertable = false, updatable = false, foreignKey = @ForeignKey(name = "fk_payments_user"))
+    private AppUser user;
+
+    // Email of the employee as sent in request bodies, not stored
+    @Transient
     private String employee;
 
+    // Stored as integer yyyyMM key, exposed as "MM-yyyy"
+    @Convert(converter = PeriodConverter.class)
     private String period;
 
     private long salary;
-}
\ No newline at end of file
+
+    public Payments(String employee, String period, long salary) {
+        this.employee = employee;
+        this.period = period;
+        this.salary = salary;
+    }
+}
@@ -0,0 +1,24 @@
+package account.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import static account.service.util.BusinessFunctionalityUtil.toPeriodKey;
+import static account.service.util.BusinessFunctionalityUtil.toPeriodString;
+
+// Store "MM-yyyy" periods as integer yyyyMM keys
+// Integer keys are compact and sort chronologically, so the database can index, range scan and order them
+// The "MM-yyyy" string is only used at the API boundary
+@Converter
+public class PeriodConverter implements AttributeConverter<String, Integer> {
+
+    @Override
+    public Integer convertToDatabaseColumn(String period) {
+        return period == null ? null : toPeriodKey(period);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer key) {
+        return key == null ? null : toPeriodString(key);
+    }
+}
@@ -0,0 +1,23 @@
+package account.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Materialized payroll sums of one period, maintained together with the payments
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PeriodPayrollTotal {
+
+    // Integer yyyyMM key, same encoding as Payments.period in the database
+    @Id
+    private int period;
+
+    private long totalSalary;
+
+    private long headcount;
+}
@@ -2,7 +2,39 @@ package account.repository;
 
 import account.model.AppUser;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public interface AppUserRepository extends JpaRepository<AppUser, Long> {
      AppUser findByEmailIgnoreCase(String email);
+
+     // Emails are stored in lower case, so a normalized email can be matched without IgnoreCase
+     boolean existsByEmail(String email);
+
+     // Resolve many emails to user ids in one query without loading entities and their roles
+     // Each row holds the email and the id of one existing user
+     @Query("SELECT u.email, u.id FROM AppUser u WHERE u.email IN :emails")
+     List<Object[]> findEmailsAndIds(@Param("emails") Collection<String> emails);
+
+     // Ids of existing users keyed by email, emails without a user are left out
+     default Map<String, Long> findIdsByEmails(Collection<String> emails) {
+          Map<String, Long> ids = new HashMap<>();
+          for (Object[] row : findEmailsAndIds(emails)) {
+               ids.put((String) row[0], (Long) row[1]);
+          }
+          return ids;
+     }
+
+     // Update password without loading the user and its roles first
+     @Transactional
+     @Modifying
+     @Query("UPDATE AppUser u SET u.password = :password WHERE u.email = :email")
+     int updatePassword(@Param("email") String email, @Param("password") String password);
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package account.repository;
+
+import account.model.EmployeeYearTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface EmployeeYearTotalRepository extends JpaRepository<EmployeeYearTotal, EmployeeYearTotal.Key> {
+}
@@ -0,0 +1,61 @@
+package account.repository;
+
+import account.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, IdempotencyRecord.Key> {
+
+    // Plain insert committed on its own, so concurrent requests with the same key fail on the primary key
+    // instead of both seeing no record
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_record (owner, idempotency_key, lease_id, locked_until, completed, " +
+            "response_status, created_at, expires_at) " +
+            "VALUES (:owner, :key, :leaseId, :lockedUntil, FALSE, 0, :createdAt, :expiresAt)", nativeQuery = true)
+    void insertInProgress(@Param("owner") String owner, @Param("key") String key,
+                          @Param("leaseId") String leaseId, @Param("lockedUntil") LocalDateTime lockedUntil,
+                          @Param("createdAt") LocalDateTime createdAt, @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Lease a key whose upload stopped without completing or releasing it, committed on its own
+    // Only one of several concurrent retries matches the expired lease
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.leaseId = :leaseId, r.lockedUntil = :lockedUntil " +
+            "WHERE r.owner = :owner AND r.idempotencyKey = :key AND r.completed = false AND r.lockedUntil < :now")
+    int takeOver(@Param("owner") String owner, @Param("key") String key, @Param("leaseId") String leaseId,
+                 @Param("lockedUntil") LocalDateTime lockedUntil, @Param("now") LocalDateTime now);
+
+    // Joins the transaction of the upload, so the record completes only if the payments commit
+    // Matches nothing if the lease was taken over in the meantime
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.fingerprint = :fingerprint, r.completed = true, " +
+            "r.responseStatus = :status, r.responseBody = :body " +
+            "WHERE r.owner = :owner AND r.idempotencyKey = :key AND r.leaseId = :leaseId AND r.completed = false")
+    int complete(@Param("owner") String owner, @Param("key") String key, @Param("leaseId") String leaseId,
+                 @Param("fingerprint") String fingerprint, @Param("status") int status, @Param("body") String body);
+
+    // Free the key of a failed upload, so it can be retried
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r " +
+            "WHERE r.owner = :owner AND r.idempotencyKey = :key AND r.leaseId = :leaseId AND r.completed = false")
+    int release(@Param("owner") String owner, @Param("key") String key, @Param("leaseId") String leaseId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.owner = :owner AND r.idempotencyKey = :key AND r.expiresAt < :now")
+    int deleteIfExpired(@Param("owner") String owner, @Param("key") String key, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
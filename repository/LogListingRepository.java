@@ -0,0 +1,71 @@
+package account.repository;
+
+import account.model.DTO.LogDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// JDBC listing of security events with only the requested filters in the WHERE clause
+// Each filter combination gets its own statement, so the database can pick the index matching it
+// instead of planning one catch-all query for every combination
+@Repository
+@RequiredArgsConstructor
+public class LogListingRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Events with id greater than afterId in ascending id order, filtered by the non-null arguments
+    // A limit of 0 returns all matching events
+    public List<LogDTO> findPage(long afterId, String action, String subject, String path,
+                                 LocalDateTime from, LocalDateTime to, int limit) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT id, date, action, subject, object, path FROM logdto WHERE id > ?");
+        params.add(afterId);
+
+        if (action != null) {
+            sql.append(" AND action = ?");
+            params.add(action);
+        }
+        if (subject != null) {
+            sql.append(" AND subject = ?");
+            params.add(subject);
+        }
+        if (path != null) {
+            sql.append(" AND path = ?");
+            params.add(path);
+        }
+        if (from != null) {
+            sql.append(" AND date >= ?");
+            params.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND date < ?");
+            params.add(Timestamp.valueOf(to));
+        }
+        sql.append(" ORDER BY id");
+        if (limit > 0) {
+            sql.append(" LIMIT ?");
+            params.add(limit);
+        }
+
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> toLogDTO(rs), params.toArray());
+    }
+
+    // Map the current row of a result set selecting all logdto columns
+    public static LogDTO toLogDTO(ResultSet rs) throws SQLException {
+        Timestamp date = rs.getTimestamp("date");
+
+        LogDTO log = new LogDTO(date != null ? date.toLocalDateTime() : null,
+                rs.getString("action"), rs.getString("subject"),
+                rs.getString("object"), rs.getString("path"));
+        log.setId(rs.getLong("id"));
+        return log;
+    }
+}
@@ -2,8 +2,21 @@ package account.repository;
 
 import account.model.LoginAttempt;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 public interface LoginAttemptRepository extends JpaRepository<LoginAttempt, Long> {
     long countByEmailAndSuccessFalse(String email);
     void deleteByEmail(String email);
+    List<LoginAttempt> findAllBySuccessFalseAndDateAfter(LocalDateTime date);
+
+    // Single bulk statement instead of loading and deleting rows one by one
+    @Modifying
+    @Query("DELETE FROM LoginAttempt a WHERE a.email IN :emails")
+    void deleteAllByEmailIn(@Param("emails") Collection<String> emails);
 }
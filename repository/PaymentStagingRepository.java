@@ -0,0 +1,76 @@
+package account.repository;
+
+import account.model.Payments;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+import static account.service.util.BusinessFunctionalityUtil.*;
+
+// JDBC access to the staging table of staged upload jobs
+// Staged rows already carry their final payment ids, so moving them is a single INSERT ... SELECT
+@Repository
+@RequiredArgsConstructor
+public class PaymentStagingRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO payment_staging (id, job_id, user_id, period, salary) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceIdAllocator idAllocator;
+
+    public void insertAll(String jobId, List<Payments> payments) {
+        long[] ids = idAllocator.allocate("payments_seq", payments.size());
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Payments payment = payments.get(i);
+                ps.setLong(1, ids[i]);
+                ps.setString(2, jobId);
+                ps.setLong(3, payment.getUserId());
+                ps.setInt(4, toPeriodKey(payment.getPeriod()));
+                ps.setLong(5, payment.getSalary());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return payments.size();
+            }
+        });
+    }
+
+    // Number of staged rows whose (user_id, period) was inserted into payments after it was validated
+    public long countConflicts(String jobId) {
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM payment_staging s JOIN payments p ON p.user_id = s.user_id AND p.period = s.period " +
+                "WHERE s.job_id = ?", Long.class, jobId);
+        return count == null ? 0 : count;
+    }
+
+    public int moveToPayments(String jobId) {
+        return jdbcTemplate.update(
+                "INSERT INTO payments (id, user_id, period, salary) " +
+                "SELECT id, user_id, period, salary FROM payment_staging WHERE job_id = ?", jobId);
+    }
+
+    // Emails of the employees with staged payments
+    public List<String> findEmployees(String jobId) {
+        return jdbcTemplate.queryForList(
+                "SELECT DISTINCT u.email FROM payment_staging s JOIN app_user u ON u.id = s.user_id WHERE s.job_id = ?",
+                String.class, jobId);
+    }
+
+    public void deleteJob(String jobId) {
+        jdbcTemplate.update("DELETE FROM payment_staging WHERE job_id = ?", jobId);
+    }
+
+    public int deleteAll() {
+        return jdbcTemplate.update("DELETE FROM payment_staging");
+    }
+}
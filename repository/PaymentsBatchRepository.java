@@ -0,0 +1,103 @@
+package account.repository;
+
+import account.model.Payments;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static account.service.util.BusinessFunctionalityUtil.*;
+
+// JDBC access to payments for bulk operations where JPA would issue one statement per row
+// Payments are keyed by user id, so callers assign Payments.userId before calling any method
+@Repository
+@RequiredArgsConstructor
+public class PaymentsBatchRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO payments (id, user_id, period, salary) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceIdAllocator idAllocator;
+
+    // Find which of the given (user_id, period) pairs already exist, returned as paymentKey(userId, period)
+    // Matches exact pairs instead of the cross product of all users and all periods
+    public Set<Long> findExistingKeys(List<Payments> payments) {
+        Set<Long> keys = new HashSet<>();
+        queryByKeys("SELECT user_id, period FROM payments", payments, "", rs -> {
+            keys.add(paymentKey(rs.getLong("user_id"), rs.getInt("period")));
+        });
+        return keys;
+    }
+
+    // Current salaries of the given (user_id, period) pairs keyed by paymentKey(userId, period)
+    // Rows are locked until the transaction ends, so the salaries stay current for aggregate deltas
+    public Map<Long, Long> findSalariesForUpdate(List<Payments> payments) {
+        Map<Long, Long> salaries = new HashMap<>();
+        queryByKeys("SELECT user_id, period, salary FROM payments", payments, " FOR UPDATE", rs -> {
+            salaries.put(paymentKey(rs.getLong("user_id"), rs.getInt("period")), rs.getLong("salary"));
+        });
+        return salaries;
+    }
+
+    // Set salaries of existing payments with one statement, matched on the unique (user_id, period) key
+    public int updateSalaries(List<Payments> payments) {
+        if (payments.isEmpty()) {
+            return 0;
+        }
+
+        List<Object> params = new ArrayList<>(payments.size() * 3);
+        for (Payments payment : payments) {
+            params.add(payment.getUserId());
+            params.add(toPeriodKey(payment.getPeriod()));
+            params.add(payment.getSalary());
+        }
+
+        String rows = String.join(", ", Collections.nCopies(payments.size(), "(?, ?, ?)"));
+        return jdbcTemplate.update(
+                "MERGE INTO payments p USING (VALUES " + rows + ") AS d(user_id, period, salary) " +
+                "ON p.user_id = d.user_id AND p.period = d.period " +
+                "WHEN MATCHED THEN UPDATE SET p.salary = d.salary", params.toArray());
+    }
+
+    // Run a query restricted to the exact (user_id, period) pairs of the payments
+    private void queryByKeys(String select, List<Payments> payments, String suffix, RowCallbackHandler handler) {
+        // Payments of unknown users or with invalid period can't exist in the database
+        List<Object> params = new ArrayList<>(payments.size() * 2);
+        for (Payments payment : payments) {
+            int periodKey = parsePeriodKey(payment.getPeriod());
+            if (payment.getUserId() != 0 && periodKey != INVALID_PERIOD) {
+                params.add(payment.getUserId());
+                params.add(periodKey);
+            }
+        }
+
+        if (params.isEmpty()) {
+            return;
+        }
+
+        String tuples = String.join(", ", Collections.nCopies(params.size() / 2, "(?, ?)"));
+        jdbcTemplate.query(select + " WHERE (user_id, period) IN (" + tuples + ")" + suffix, handler, params.toArray());
+    }
+
+    public void insertAll(List<Payments> payments) {
+        long[] ids = idAllocator.allocate("payments_seq", payments.size());
+        for (int i = 0; i < ids.length; i++) {
+            payments.get(i).setId(ids[i]);
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, payments, payments.size(), (ps, payment) -> {
+            ps.setLong(1, payment.getId());
+            ps.setLong(2, payment.getUserId());
+            ps.setInt(3, toPeriodKey(payment.getPeriod()));
+            ps.setLong(4, payment.getSalary());
+        });
+    }
+}
@@ -1,12 +1,28 @@
 package account.repository;
 
 import account.model.Payments;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface PaymentsRepository extends JpaRepository<Payments, Long> {
-    List<Payments> findAllByEmployee(String employee);
-    List<Payments> findAllByEmployeeInAndPeriodIn(List<String> employees, List<String> periods);
-    Payments findByEmployeeAndPeriod(String employee, String period);
-}
\ No newline at end of file
+    List<Payments> findAllByUserId(long userId);
+
+    // Newest first, ordered by the database using the (user_id, period) index
+    List<Payments> findAllByUserIdOrderByPeriodDesc(long userId);
+
+    Payments findByUserIdAndPeriod(long userId, String period);
+
+    // Range scan over the (user_id, period) index, newest first, reading only one page
+    @Query("SELECT p FROM Payments p WHERE p.userId = :userId AND p.period BETWEEN :from AND :to ORDER BY p.period DESC")
+    List<Payments> findPageByUserIdAndPeriodBetween(@Param("userId") long userId,
+                                                    @Param("from") String from,
+                                                    @Param("to") String to,
+                                                    Pageable pageable);
+
+    // Payments can't outlive their user, the foreign key rejects deleting a user who still has any
+    boolean existsByUserId(long userId);
+}
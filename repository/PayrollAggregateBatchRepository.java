@@ -0,0 +1,107 @@
+package account.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// JDBC access to payroll aggregates
+// Deltas are applied with MERGE, so concurrent transactions add to the stored sums instead of overwriting them
+@Repository
+@RequiredArgsConstructor
+public class PayrollAggregateBatchRepository {
+
+    private static final String MERGE_PERIOD_SQL =
+            "MERGE INTO period_payroll_total t USING (VALUES (?, ?, ?)) AS d(period, total_salary, headcount) " +
+            "ON t.period = d.period " +
+            "WHEN MATCHED THEN UPDATE SET t.total_salary = t.total_salary + d.total_salary, t.headcount = t.headcount + d.headcount " +
+            "WHEN NOT MATCHED THEN INSERT (period, total_salary, headcount) VALUES (d.period, d.total_salary, d.headcount)";
+
+    private static final String MERGE_EMPLOYEE_YEAR_SQL =
+            "MERGE INTO employee_year_total t USING (VALUES (?, ?, ?, ?)) AS d(user_id, pay_year, total_salary, payments) " +
+            "ON t.user_id = d.user_id AND t.pay_year = d.pay_year " +
+            "WHEN MATCHED THEN UPDATE SET t.total_salary = t.total_salary + d.total_salary, t.payments = t.payments + d.payments " +
+            "WHEN NOT MATCHED THEN INSERT (user_id, pay_year, total_salary, payments) VALUES (d.user_id, d.pay_year, d.total_salary, d.payments)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Add {totalSalary, headcount} deltas keyed by yyyyMM period
+    public void mergePeriodDeltas(Map<Integer, long[]> deltas) {
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((period, delta) -> args.add(new Object[]{period, delta[0], delta[1]}));
+        jdbcTemplate.batchUpdate(MERGE_PERIOD_SQL, args);
+    }
+
+    // Add {totalSalary, payments} deltas keyed by user id and year
+    public void mergeEmployeeYearDeltas(Map<Long, Map<Integer, long[]>> deltas) {
+        List<Object[]> args = new ArrayList<>();
+        deltas.forEach((userId, years) -> years.forEach((year, delta) ->
+                args.add(new Object[]{userId, year, delta[0], delta[1]})));
+        jdbcTemplate.batchUpdate(MERGE_EMPLOYEE_YEAR_SQL, args);
+    }
+
+    // Add the sums of all rows staged by an upload job, computed by the database in one pass per aggregate
+    public void mergeStagedDeltas(String jobId) {
+        jdbcTemplate.update(
+                "MERGE INTO period_payroll_total t USING (" +
+                "SELECT period, SUM(salary) AS total_salary, COUNT(*) AS headcount FROM payment_staging " +
+                "WHERE job_id = ? GROUP BY period) AS d " +
+                "ON t.period = d.period " +
+                "WHEN MATCHED THEN UPDATE SET t.total_salary = t.total_salary + d.total_salary, t.headcount = t.headcount + d.headcount " +
+                "WHEN NOT MATCHED THEN INSERT (period, total_salary, headcount) VALUES (d.period, d.total_salary, d.headcount)",
+                jobId);
+        jdbcTemplate.update(
+                "MERGE INTO employee_year_total t USING (" +
+                "SELECT user_id, period / 100 AS pay_year, SUM(salary) AS total_salary, COUNT(*) AS payments FROM payment_staging " +
+                "WHERE job_id = ? GROUP BY user_id, period / 100) AS d " +
+                "ON t.user_id = d.user_id AND t.pay_year = d.pay_year " +
+                "WHEN MATCHED THEN UPDATE SET t.total_salary = t.total_salary + d.total_salary, t.payments = t.payments + d.payments " +
+                "WHEN NOT MATCHED THEN INSERT (user_id, pay_year, total_salary, payments) VALUES (d.user_id, d.pay_year, d.total_salary, d.payments)",
+                jobId);
+    }
+
+    // Difference between the sums of payments and the stored aggregates of all periods in [fromPeriod, toPeriod],
+    // as {totalSalary, headcount} deltas keyed by period; periods whose aggregate is correct are left out
+    public Map<Integer, long[]> findPeriodCorrections(int fromPeriod, int toPeriod) {
+        Map<Integer, long[]> corrections = new TreeMap<>();
+        jdbcTemplate.query(
+                "SELECT period, SUM(total_salary), SUM(headcount) FROM (" +
+                "SELECT period, SUM(salary) AS total_salary, COUNT(*) AS headcount FROM payments " +
+                "WHERE period BETWEEN ? AND ? GROUP BY period " +
+                "UNION ALL SELECT period, -total_salary, -headcount FROM period_payroll_total " +
+                "WHERE period BETWEEN ? AND ?) d " +
+                "GROUP BY period HAVING SUM(total_salary) <> 0 OR SUM(headcount) <> 0",
+                (RowCallbackHandler) rs -> corrections.put(rs.getInt(1), new long[]{rs.getLong(2), rs.getLong(3)}),
+                fromPeriod, toPeriod, fromPeriod, toPeriod);
+        return corrections;
+    }
+
+    // Difference between the sums of payments and the stored aggregates of the given year, as
+    // {totalSalary, payments} deltas keyed by user id and year; correct aggregates are left out
+    public Map<Long, Map<Integer, long[]>> findEmployeeYearCorrections(int year) {
+        Map<Long, Map<Integer, long[]>> corrections = new TreeMap<>();
+        jdbcTemplate.query(
+                "SELECT user_id, SUM(total_salary), SUM(payments) FROM (" +
+                "SELECT user_id, SUM(salary) AS total_salary, COUNT(*) AS payments FROM payments " +
+                "WHERE period BETWEEN ? AND ? GROUP BY user_id " +
+                "UNION ALL SELECT user_id, -total_salary, -payments FROM employee_year_total " +
+                "WHERE pay_year = ?) d " +
+                "GROUP BY user_id HAVING SUM(total_salary) <> 0 OR SUM(payments) <> 0",
+                (RowCallbackHandler) rs -> corrections.computeIfAbsent(rs.getLong(1), k -> new TreeMap<>())
+                        .put(year, new long[]{rs.getLong(2), rs.getLong(3)}),
+                year * 100 + 1, year * 100 + 12, year);
+        return corrections;
+    }
+
+    // Years that have payments or aggregates
+    public List<Integer> findAggregateYears() {
+        return jdbcTemplate.queryForList(
+                "SELECT period / 100 FROM payments UNION SELECT period / 100 FROM period_payroll_total " +
+                "UNION SELECT pay_year FROM employee_year_total ORDER BY 1", Integer.class);
+    }
+}
@@ -0,0 +1,7 @@
+package account.repository;
+
+import account.model.PeriodPayrollTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface PeriodPayrollTotalRepository extends JpaRepository<PeriodPayrollTotal, Integer> {
+}
@@ -0,0 +1,67 @@
+package account.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Reserves ids for JDBC inserts from the same pooled sequences Hibernate allocates entity ids from
+// Every sequence value v reserves the block (v - ALLOCATION_SIZE, v], which is how Hibernate's pooled
+// optimizer interprets it, so ids handed out here never collide with ids of entities saved through JPA.
+// Unused ids of the last block are kept for the next call, so small inserts don't waste whole blocks.
+// Blocks are guarded by a ReentrantLock rather than a monitor, because the lock is held across the
+// sequence query and a virtual thread blocking inside synchronized would pin its carrier thread.
+@Component
+@RequiredArgsConstructor
+public class SequenceIdAllocator {
+
+    // Increment of every entity sequence, and the number of ids reserved by one sequence call
+    public static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    public long[] allocate(String sequence, int count) {
+        long[] ids = new long[count];
+        Block block = blocks.computeIfAbsent(sequence, k -> new Block());
+
+        block.lock.lock();
+        try {
+            int allocated = block.take(ids, 0);
+            while (allocated < count) {
+                // One round trip reserves all blocks needed for the rest of the ids
+                int needed = (count - allocated + ALLOCATION_SIZE - 1) / ALLOCATION_SIZE;
+                List<Long> values = jdbcTemplate.queryForList(
+                        "SELECT NEXT VALUE FOR " + sequence + " FROM SYSTEM_RANGE(1, ?)", Long.class, needed);
+
+                for (long value : values) {
+                    // Block of the first value of a new sequence is cut off at 1, hence the outer loop
+                    block.next = Math.max(1, value - ALLOCATION_SIZE + 1);
+                    block.hi = value;
+                    allocated = block.take(ids, allocated);
+                }
+            }
+        } finally {
+            block.lock.unlock();
+        }
+        return ids;
+    }
+
+    // Ids from next to hi inclusive are still free; guarded by lock
+    private static final class Block {
+        private final ReentrantLock lock = new ReentrantLock();
+        private long next = 1;
+        private long hi = 0;
+
+        private int take(long[] ids, int allocated) {
+            while (next <= hi && allocated < ids.length) {
+                ids[allocated++] = next++;
+            }
+            return allocated;
+        }
+    }
+}
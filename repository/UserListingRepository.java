@@ -0,0 +1,66 @@
+package account.repository;
+
+import account.model.DTO.UserInfoDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// JDBC projection for listing users with their role names in a single query
+// Replaces loading AppUser entities, whose EAGER roles cost one extra query per user
+@Repository
+@RequiredArgsConstructor
+public class UserListingRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Users with id greater than afterId in ascending id order, optionally filtered by role and blocked status
+    // A limit of 0 returns all matching users
+    public List<UserInfoDTO> findPage(long afterId, String role, Boolean blocked, int limit) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder page = new StringBuilder("SELECT u.id, u.name, u.lastname, u.email FROM app_user u WHERE u.id > ?");
+        params.add(afterId);
+
+        if (blocked != null) {
+            page.append(" AND u.blocked = ?");
+            params.add(blocked);
+        }
+        if (role != null) {
+            page.append(" AND EXISTS (SELECT 1 FROM user_roles fr JOIN role f ON f.id = fr.role_id")
+                    .append(" WHERE fr.user_id = u.id AND f.name = ?)");
+            params.add(role);
+        }
+        page.append(" ORDER BY u.id");
+        if (limit > 0) {
+            page.append(" LIMIT ?");
+            params.add(limit);
+        }
+
+        // Page of users is selected first, then joined with all of their roles
+        String sql = "SELECT p.id, p.name, p.lastname, p.email, r.name AS role FROM (" + page + ") p" +
+                " LEFT JOIN user_roles ur ON ur.user_id = p.id" +
+                " LEFT JOIN role r ON r.id = ur.role_id" +
+                " ORDER BY p.id, r.name";
+
+        Map<Long, UserInfoDTO> users = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            long id = rs.getLong("id");
+            UserInfoDTO user = users.get(id);
+            if (user == null) {
+                user = new UserInfoDTO(id, rs.getString("name"), rs.getString("lastname"),
+                        rs.getString("email"), new ArrayList<>(2));
+                users.put(id, user);
+            }
+            String roleName = rs.getString("role");
+            if (roleName != null) {
+                user.getRoles().add(roleName);
+            }
+        }, params.toArray());
+
+        return new ArrayList<>(users.values());
+    }
+}
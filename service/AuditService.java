@@ -1,27 +1,109 @@
 package account.service;
 
 import account.model.DTO.LogDTO;
-import account.repository.LogsRepository;
+import account.repository.LogListingRepository;
+import account.service.util.PaginationUtil;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import static account.service.util.PaginationUtil.*;
 
 @Service
 @RequiredArgsConstructor
 public class AuditService {
 
-    private final LogsRepository logsRepository;
+    private static final int DEFAULT_PAGE_SIZE = 1000;
+    private static final int MAX_PAGE_SIZE = 10000;
+
+    // Rows fetched per round trip by the export cursor
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
+    private static final String EXPORT_SQL =
+            "SELECT id, date, action, subject, object, path FROM logdto WHERE id > ? ORDER BY id";
+
+    private final LogListingRepository logListingRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
 
-    public ResponseEntity<?> getListOfEvents() {
-        List<LogDTO> logs = logsRepository.findAll();
+    public ResponseEntity<?> getListOfEvents(Optional<String> cursor, Optional<Integer> limit,
+                                             Optional<String> action, Optional<String> subject, Optional<String> path,
+                                             Optional<LocalDateTime> from, Optional<LocalDateTime> to) {
+        // Without paging parameters list all events, as before
+        boolean paged = cursor.isPresent() || limit.isPresent();
+        int pageSize = paged ? resolveLimit(limit, DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE) : 0;
+        long afterId = cursor.map(PaginationUtil::decodeCursor).orElse(0L);
+
+        // Fetch one extra row to find out whether another page follows
+        List<LogDTO> logs = logListingRepository.findPage(afterId, action.orElse(null), subject.orElse(null),
+                path.orElse(null), from.orElse(null), to.orElse(null), paged ? pageSize + 1 : 0);
 
         if (logs.isEmpty()) {
             return ResponseEntity.ok().build();
         }
 
+        // If there are more rows than requested return cursor pointing after the last returned event
+        if (paged && logs.size() > pageSize) {
+            logs = logs.subList(0, pageSize);
+            String nextCursor = encodeCursor(logs.get(pageSize - 1).getId());
+            return ResponseEntity.ok().header(NEXT_CURSOR_HEADER, nextCursor).body(logs);
+        }
+
         return ResponseEntity.ok(logs);
     }
-}
+
+    // Stream events as newline-delimited JSON straight from a forward-only cursor
+    // Only one row is held in memory at a time, so memory use doesn't depend on table size
+    @Transactional(readOnly = true)
+    public void exportEvents(Optional<Long> after, boolean gzip, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        if (gzip) {
+            response.setHeader("Content-Encoding", "gzip");
+        }
+
+        // Flushing after every event would defeat buffering and compression
+        ObjectWriter writer = objectMapper.writerFor(LogDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        OutputStream out = gzip ? new GZIPOutputStream(response.getOutputStream(), 1 << 16) : response.getOutputStream();
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(EXPORT_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(EXPORT_FETCH_SIZE);
+                statement.setLong(1, after.orElse(0L));
+                return statement;
+            }, resultSet -> {
+                LogDTO log = LogListingRepository.toLogDTO(resultSet);
+
+                try {
+                    writer.writeValue(generator, log);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+}
\ No newline at end of file
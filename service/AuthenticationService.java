@@ -1,11 +1,16 @@
 package account.service;
 
 import account.exception.ExceptionWithBadRequest;
+import account.config.AccessTokenService;
+import account.config.RoleRegistry;
+import account.config.TokenVersionRegistry;
+import account.config.UserDetailsServiceImpl;
+import account.config.VerifiedCredentialCache;
 import account.model.AppUser;
+import account.model.AppUserAdapter;
 import account.model.DTO.NewPasswordDTO;
 import account.model.Role;
 import account.repository.AppUserRepository;
-import account.repository.RoleRepository;
 import account.event.UserEventPublisher;
 import account.service.util.BreachedPasswordChecker;
 import jakarta.servlet.http.HttpServletRequest;
@@ -24,9 +29,14 @@ import java.util.Map;
 public class AuthenticationService {
 
     private final AppUserRepository appUserRepository;
-    private final RoleRepository roleRepository;
+    private final RoleRegistry roleRegistry;
     private final PasswordEncoder encoder;
     private final UserEventPublisher publisher;
+    private final VerifiedCredentialCache credentialCache;
+    private final AccessTokenService tokenService;
+    private final TokenVersionRegistry tokenVersions;
+    private final BreachedPasswordChecker breachedPasswordChecker;
+    private final UserDetailsServiceImpl userDetailsService;
 
     public ResponseEntity<?> signUp(AppUser user, Authentication auth, HttpServletRequest request) {
         // Verification steps
@@ -47,7 +57,7 @@ public class AuthenticationService {
         }
 
         // Step 4: Check if provided password is not in breached passwords list
-        if (BreachedPasswordChecker.isPasswordBreached(user.getPassword())) {
+        if (breachedPasswordChecker.isPasswordBreached(user.getPassword())) {
             throw new ExceptionWithBadRequest("The password is in the hacker's database!");
         }
         // Verification finished
@@ -56,9 +66,9 @@ public class AuthenticationService {
         user.setPassword(encoder.encode(user.getPassword()));
 
         // Assign admin role to first user. Next users will have user role
-        Role userRole = roleRepository.findByName("ROLE_USER");
-        if (appUserRepository.findAll().isEmpty()) {
-            userRole = roleRepository.findByName("ROLE_ADMINISTRATOR");
+        Role userRole = roleRegistry.get(RoleRegistry.ROLE_USER);
+        if (appUserRepository.count() == 0) {
+            userRole = roleRegistry.get(RoleRegistry.ROLE_ADMINISTRATOR);
         }
         user.getRoles().add(userRole);
 
@@ -89,8 +99,8 @@ public class AuthenticationService {
             throw new ExceptionWithBadRequest("Password length must be 12 chars minimum!");
         }
 
-        // Find user by email from authentication
-        AppUser currentUser = appUserRepository.findByEmailIgnoreCase(auth.getName());
+        // Find user by email from authentication, usually the snapshot already loaded during authentication
+        AppUserAdapter currentUser = userDetailsService.loadUserByUsername(auth.getName());
 
         // Set current password to variable for later use
         String oldPassword = currentUser.getPassword();
@@ -101,13 +111,16 @@ public class AuthenticationService {
         }
 
         // Step 3: Check if provided password is not in breached passwords list
-        if (BreachedPasswordChecker.isPasswordBreached(newPassword)) {
+        if (breachedPasswordChecker.isPasswordBreached(newPassword)) {
             throw new ExceptionWithBadRequest("The password is in the hacker's database!");
         }
 
         // Encode password and save it in repository
-        currentUser.setPassword(encoder.encode(newPassword));
-        appUserRepository.save(currentUser);
+        appUserRepository.updatePassword(currentUser.getEmail(), encoder.encode(newPassword));
+
+        // Old password and tokens issued with it must stop working immediately
+        credentialCache.evictUserAfterCommit(currentUser.getEmail());
+        tokenVersions.bumpAfterCommit(currentUser.getEmail());
 
         // Prepare response body
         Map<String, String> responseBody = new LinkedHashMap<>();
@@ -118,9 +131,19 @@ public class AuthenticationService {
         String email = auth.getName();
         String path = request.getRequestURI();
 
-        publisher.publishEvent("CHANGE_PASSWORD", email, email, path);
+        publisher.publishEvent("CHANGE_PASSWORD", email, email, path, email);
 
         // Return response body with 200 code
         return ResponseEntity.ok(responseBody);
     }
+
+    public ResponseEntity<?> issueToken(Authentication auth) {
+        // Credentials were already verified by HTTP Basic, so only sign a token for the current user
+        Map<String, Object> responseBody = new LinkedHashMap<>();
+        responseBody.put("token", tokenService.issue(auth));
+        responseBody.put("token_type", "Bearer");
+        responseBody.put("expires_in", tokenService.getTtl().toSeconds());
+
+        return ResponseEntity.ok(responseBody);
+    }
 }
\ No newline at end of file
@@ -1,179 +1,474 @@
 package account.service;
 
+import account.config.UserDetailsServiceImpl;
 import account.exception.ExceptionWithBadRequest;
-import account.model.AppUser;
+import account.exception.PaymentUploadException;
+import account.model.AppUserAdapter;
 import account.model.Payments;
+import account.model.DTO.PaymentRowErrorDTO;
 import account.model.DTO.SalaryInformationDTO;
 import account.repository.AppUserRepository;
+import account.repository.PaymentsBatchRepository;
 import account.repository.PaymentsRepository;
-import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
 import java.util.stream.Collectors;
 
 import static account.service.util.BusinessFunctionalityUtil.*;
+import static account.service.util.PaginationUtil.*;
 
 @Service
-@RequiredArgsConstructor
 public class BusinessFunctionalityService {
 
+    // Rows validated and inserted together by bulk uploads
+    private static final int UPLOAD_CHUNK_SIZE = 1000;
+
+    // Upper bound of row errors returned by a streaming upload
+    private static final int MAX_REPORTED_ROW_ERRORS = 1000;
+
+    private static final int DEFAULT_PAYMENT_PAGE_SIZE = 100;
+    private static final int MAX_PAYMENT_PAGE_SIZE = 1000;
+
+    // Browsers may store payment responses, but have to revalidate them with the ETag on every use
+    private static final CacheControl PAYMENT_CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    // Bounds used when only one side of a period range is given
+    private static final String FIRST_PERIOD = "01-0001";
+    private static final String LAST_PERIOD = "12-9999";
+
     private final AppUserRepository appUserRepository;
     private final PaymentsRepository paymentsRepository;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final PaymentsBatchRepository paymentsBatchRepository;
+    private final ObjectMapper objectMapper;
+    private final PayrollAggregateService payrollAggregateService;
+    private final PaymentResponseCache paymentResponseCache;
+    private final PaymentUploadMeters jsonUploadMeters;
+    private final PaymentUploadMeters streamUploadMeters;
+
+    public BusinessFunctionalityService(AppUserRepository appUserRepository,
+                                        PaymentsRepository paymentsRepository,
+                                        UserDetailsServiceImpl userDetailsService,
+                                        PaymentsBatchRepository paymentsBatchRepository,
+                                        ObjectMapper objectMapper,
+                                        PayrollAggregateService payrollAggregateService,
+                                        PaymentResponseCache paymentResponseCache,
+                                        MeterRegistry meterRegistry) {
+        this.appUserRepository = appUserRepository;
+        this.paymentsRepository = paymentsRepository;
+        this.userDetailsService = userDetailsService;
+        this.paymentsBatchRepository = paymentsBatchRepository;
+        this.objectMapper = objectMapper;
+        this.payrollAggregateService = payrollAggregateService;
+        this.paymentResponseCache = paymentResponseCache;
+        this.jsonUploadMeters = new PaymentUploadMeters(meterRegistry, "json");
+        this.streamUploadMeters = new PaymentUploadMeters(meterRegistry, "stream");
+    }
 
-    @Transactional
-    public ResponseEntity<?> getPayment(Optional<String> period, Authentication auth) {
-        // Get current user
-        AppUser user = appUserRepository.findByEmailIgnoreCase(auth.getName());
+    // Not transactional, so a 304 answer doesn't even acquire a database connection
+    public ResponseEntity<?> getPayment(Optional<String> period, Optional<String> from, Optional<String> to,
+                                        Optional<Integer> limit, Optional<String> cursor,
+                                        Optional<String> ifNoneMatch, Authentication auth) throws IOException {
+        // A malformed request is rejected even if the client holds the current ETag
+        validatePaymentParameters(period, from, to, limit, cursor);
+
+        // Read the version before any payment, so a concurrent change can only make the ETag older than the data
+        long version = paymentResponseCache.currentVersion(auth.getName());
+        String etag = paymentResponseCache.etag(version);
+
+        // Client already has the current payments, answer without loading them
+        if (paymentResponseCache.matches(ifNoneMatch.orElse(null), etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(PAYMENT_CACHE_CONTROL).build();
+        }
+
+        // Serve serialized response of the same request if payments haven't changed since it was built
+        String variant = String.join("|", period.orElse(""), from.orElse(""), to.orElse(""),
+                limit.map(String::valueOf).orElse(""), cursor.orElse(""));
+        PaymentResponseCache.CachedResponse cached = paymentResponseCache.get(auth.getName(), variant, version);
+
+        if (cached == null) {
+            ResponseEntity<?> response = loadPayment(period, from, to, limit, cursor, auth);
+            cached = new PaymentResponseCache.CachedResponse(version,
+                    objectMapper.writeValueAsBytes(response.getBody()),
+                    response.getHeaders().getFirst(NEXT_CURSOR_HEADER));
+            paymentResponseCache.put(auth.getName(), variant, cached);
+        }
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(PAYMENT_CACHE_CONTROL)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (cached.nextCursor() != null) {
+            builder.header(NEXT_CURSOR_HEADER, cached.nextCursor());
+        }
+        return builder.body(cached.body());
+    }
+
+    // Same checks as the lookups below, done up front so they apply to 304 answers as well
+    private void validatePaymentParameters(Optional<String> period, Optional<String> from, Optional<String> to,
+                                           Optional<Integer> limit, Optional<String> cursor) {
+        // A single period ignores the range and paging parameters
+        if (period.isPresent()) {
+            if (isInvalidDate(period.get())) {
+                throw new ExceptionWithBadRequest("Date format is wrong");
+            }
+            return;
+        }
+
+        resolveLimit(limit, DEFAULT_PAYMENT_PAGE_SIZE, MAX_PAYMENT_PAGE_SIZE);
+        if (parsePeriodKey(from.orElse(FIRST_PERIOD)) == INVALID_PERIOD
+                || parsePeriodKey(to.orElse(LAST_PERIOD)) == INVALID_PERIOD) {
+            throw new ExceptionWithBadRequest("Date format is wrong");
+        }
+        cursor.ifPresent(BusinessFunctionalityService::parseCursorKey);
+    }
+
+    // Cursor holds the yyyyMM key of the newest period of the next page
+    private static int parseCursorKey(String cursor) {
+        long cursorKey = decodeCursor(cursor);
+        if (cursorKey > Integer.MAX_VALUE || parsePeriodKey(toPeriodString((int) cursorKey)) != cursorKey) {
+            throw new ExceptionWithBadRequest("Invalid cursor");
+        }
+        return (int) cursorKey;
+    }
+
+    private ResponseEntity<?> loadPayment(Optional<String> period, Optional<String> from, Optional<String> to,
+                                          Optional<Integer> limit, Optional<String> cursor, Authentication auth) {
+        // Get current user, usually the snapshot already loaded during authentication
+        AppUserAdapter user = userDetailsService.loadUserByUsername(auth.getName());
 
         // If period is specified in parameter return single information
         if (period.isPresent()) {
             return getSalaryInformationForPeriod(period.get(), user);
         }
 
+        // If range or paging is requested return a single page of information
+        if (from.isPresent() || to.isPresent() || limit.isPresent() || cursor.isPresent()) {
+            return getSalaryInformationPage(user, from, to, limit, cursor);
+        }
+
         // Else if period is not specified in parameter return list of information
         return getAllSalaryInformation(user);
     }
 
-    private ResponseEntity<?> getSalaryInformationForPeriod (String period, AppUser user) {
+    private ResponseEntity<?> getSalaryInformationForPeriod (String period, AppUserAdapter user) {
         // Check if data format is correct
         if (isInvalidDate(period)) {
             throw new ExceptionWithBadRequest("Date format is wrong");
         }
 
         // Get requested payment
-        Payments payment = paymentsRepository.findByEmployeeAndPeriod(user.getEmail(), period);
+        Payments payment = paymentsRepository.findByUserIdAndPeriod(user.getId(), period);
 
         // If no payment was found return empty body
         if (payment == null) {
             return ResponseEntity.ok(Map.of());
         }
 
-        // Else prepare variables to output form
-        String periodOutput = convertPeriodToMonthName(period);
-        String salary = convertSalaryToString(payment.getSalary());
-
-        // Prepare response body
-        SalaryInformationDTO responseBody = new SalaryInformationDTO(
-                user.getName(), user.getLastname(), payment.getPeriod(), periodOutput, salary);
-
-        return ResponseEntity.ok(responseBody);
+        // Else prepare response body in output form
+        return ResponseEntity.ok(toSalaryInformation(user, payment));
     }
 
-    private ResponseEntity<?> getAllSalaryInformation(AppUser user) {
-        // Find all payments matching current user
-        List<Payments> listOfPayments = paymentsRepository.findAllByEmployee(user.getEmail());
+    private ResponseEntity<?> getAllSalaryInformation(AppUserAdapter user) {
+        // Find all payments matching current user, already sorted in descending order by the database
+        List<Payments> listOfPayments = paymentsRepository.findAllByUserIdOrderByPeriodDesc(user.getId());
+
+        // If no payment was found return empty array body
+        if (listOfPayments.isEmpty()) {
+            return ResponseEntity.ok(List.of(Map.of()));
+        }
 
         // Iterate over all payments matching current user and get salary information list in final form
         List<SalaryInformationDTO> salaryInformationList = listOfPayments.stream()
-                .map(payment -> new SalaryInformationDTO(
-                        user.getName(),
-                        user.getLastname(),
-                        payment.getPeriod(),
-                        convertPeriodToMonthName(payment.getPeriod()),
-                        convertSalaryToString(payment.getSalary())
-                ))
+                .map(payment -> toSalaryInformation(user, payment))
                 .collect(Collectors.toList());
 
+        return ResponseEntity.ok(salaryInformationList);
+    }
+
+    private ResponseEntity<?> getSalaryInformationPage(AppUserAdapter user, Optional<String> from, Optional<String> to,
+                                                       Optional<Integer> limit, Optional<String> cursor) {
+        int pageSize = resolveLimit(limit, DEFAULT_PAYMENT_PAGE_SIZE, MAX_PAYMENT_PAGE_SIZE);
+
+        // Check if data format of range bounds is correct
+        int fromKey = parsePeriodKey(from.orElse(FIRST_PERIOD));
+        int toKey = parsePeriodKey(to.orElse(LAST_PERIOD));
+        if (fromKey == INVALID_PERIOD || toKey == INVALID_PERIOD) {
+            throw new ExceptionWithBadRequest("Date format is wrong");
+        }
+
+        // Cursor holds the newest period of the next page, which narrows the upper bound
+        if (cursor.isPresent()) {
+            toKey = Math.min(toKey, parseCursorKey(cursor.get()));
+        }
+
+        // Fetch one extra row to find out whether another page follows
+        List<Payments> payments = fromKey > toKey ? List.of() : paymentsRepository.findPageByUserIdAndPeriodBetween(
+                user.getId(), toPeriodString(fromKey), toPeriodString(toKey), PageRequest.of(0, pageSize + 1));
+
         // If no payment was found return empty array body
-        if (salaryInformationList.isEmpty()) {
+        if (payments.isEmpty()) {
             return ResponseEntity.ok(List.of(Map.of()));
         }
 
-        // Else sort payments in descending order
-        salaryInformationList = salaryInformationList.stream()
-                .sorted()
+        boolean hasNext = payments.size() > pageSize;
+        List<SalaryInformationDTO> salaryInformationList = payments.stream()
+                .limit(pageSize)
+                .map(payment -> toSalaryInformation(user, payment))
                 .collect(Collectors.toList());
 
-        return ResponseEntity.ok(salaryInformationList);
+        // Next page continues with the month preceding the oldest returned period
+        int oldest = salaryInformationList.get(salaryInformationList.size() - 1).getPeriodKey();
+        int next = oldest % 100 == 1 ? (oldest / 100 - 1) * 100 + 12 : oldest - 1;
+        if (!hasNext || next < fromKey) {
+            return ResponseEntity.ok(salaryInformationList);
+        }
+        return ResponseEntity.ok().header(NEXT_CURSOR_HEADER, encodeCursor(next)).body(salaryInformationList);
+    }
+
+    private SalaryInformationDTO toSalaryInformation(AppUserAdapter user, Payments payment) {
+        int periodKey = toPeriodKey(payment.getPeriod());
+        return new SalaryInformationDTO(
+                user.getName(),
+                user.getLastname(),
+                periodKey,
+                convertPeriodKeyToMonthName(periodKey),
+                convertSalaryToString(payment.getSalary()));
     }
 
     @Transactional
     public ResponseEntity<?> uploadPayments(List<Payments> payments) {
 
-        // Preparation for checks
+        jsonUploadMeters.recordBatchSize(payments.size());
+        long validationStarted = System.nanoTime();
 
-        // Initialize StringBuilder for storing potential errors
-        StringBuilder errors = new StringBuilder();
-
-        // Prepare HashSet to store potential duplicates in the request body
-        Set<String> duplicateChecker = new HashSet<>();
+        // Look up only the users and payments referenced by the request body
+        Set<Long> existingPaymentSet = new HashSet<>();
+        for (int from = 0; from < payments.size(); from += UPLOAD_CHUNK_SIZE) {
+            List<Payments> chunk = payments.subList(from, Math.min(from + UPLOAD_CHUNK_SIZE, payments.size()));
+            resolveEmployees(chunk);
+            existingPaymentSet.addAll(paymentsBatchRepository.findExistingKeys(chunk));
+        }
 
+        // Check every payment provided in request body
+        String errors = validatePayments(payments, existingPaymentSet);
 
+        jsonUploadMeters.recordValidation(validationStarted);
 
-        // Fetch all users and store them in a map
-        Map<String, AppUser> users = appUserRepository.findAll().stream()
-                .collect(Collectors.toMap(AppUser::getEmail, user -> user, (existing, replacement) -> existing));
+        // If there are errors, throw an exception and rollback the transaction
+        if (!errors.isEmpty()) {
+            throw new ExceptionWithBadRequest(errors);
+        }
 
-        // Fetch all existing payments for the provided employees and periods
-        List<Payments> existingPayments = paymentsRepository.findAllByEmployeeInAndPeriodIn(
-                payments.stream().map(Payments::getEmployee).collect(Collectors.toList()),
-                payments.stream().map(Payments::getPeriod).collect(Collectors.toList()));
+        // Save all payments if there are no errors
+        long persistStarted = System.nanoTime();
+        paymentsRepository.saveAll(payments);
+        payrollAggregateService.recordInserted(payments);
+        jsonUploadMeters.recordPersist(persistStarted);
+        paymentResponseCache.bumpAfterCommit(payments.stream().map(Payments::getEmployee).toList());
 
-        // Create a map for quick lookup of existing payments
-        Set<String> existingPaymentSet = existingPayments.stream()
-                .map(p -> p.getEmployee() + "-" + p.getPeriod())
-                .collect(Collectors.toSet());
+        return ResponseEntity.ok(Map.of("status", "Added successfully!"));
+    }
 
+    // Same as uploadPayments, for bodies that have to be read as a stream, e.g. to fingerprint them
+    @Transactional
+    public ResponseEntity<?> uploadPayments(InputStream body) throws IOException {
+        List<Payments> payments;
+        try {
+            payments = objectMapper.readValue(body, new TypeReference<List<Payments>>() {});
+        } catch (JsonProcessingException e) {
+            throw new ExceptionWithBadRequest("Request body must be a JSON array of payments");
+        }
+        return uploadPayments(payments);
+    }
 
+    // Streaming variant of uploadPayments for very large uploads
+    // The JSON array is parsed incrementally and validated and inserted in chunks, so memory use
+    // is bounded by the chunk size. The upload is still all-or-nothing: any invalid row rolls back
+    // every chunk inserted before it. Duplicates spanning two chunks are reported as already allocated,
+    // as the earlier one has been inserted by then.
+    // Read errors are checked exceptions, so they have to roll back explicitly too.
+    @Transactional(rollbackFor = Exception.class)
+    public ResponseEntity<?> uploadPaymentsStream(InputStream body) throws IOException {
+        List<PaymentRowErrorDTO> rowErrors = new ArrayList<>();
+        long[] invalidRows = {0};
+        long row = 0;
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new ExceptionWithBadRequest("Request body must be a JSON array of payments");
+            }
 
-        // Checks
+            List<Payments> chunk = new ArrayList<>(UPLOAD_CHUNK_SIZE);
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                chunk.add(objectMapper.readValue(parser, Payments.class));
 
-        // Iterate over each payment provided in request body
-        for (Payments payment : payments) {
-            // Prepare salary in correct form for error messages
-            String salaryAsString = convertSalaryToString(payment.getSalary());
+                if (chunk.size() == UPLOAD_CHUNK_SIZE) {
+                    ingestChunk(chunk, row, rowErrors, invalidRows);
+                    row += chunk.size();
+                    chunk.clear();
+                }
+            }
 
-            // Prepare error message prefix for current payment
-            String format = "(Employee: %s, period: %s, salary: %s): ";
-            String currentPayment = String.format(format, payment.getEmployee(), payment.getPeriod(), salaryAsString);
+            // Anything but the end of the array, e.g. a number between payments, rejects the whole upload
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                throw new ExceptionWithBadRequest("Request body must be a JSON array of payments");
+            }
 
-            // Check if salary is negative
-            if (payment.getSalary() <= 0) {
-                appendStringBuilder(errors, currentPayment, "Salary can't be negative");
+            if (!chunk.isEmpty()) {
+                ingestChunk(chunk, row, rowErrors, invalidRows);
+                row += chunk.size();
             }
+        } catch (JsonProcessingException e) {
+            // Truncated or malformed body
+            throw new ExceptionWithBadRequest("Request body must be a JSON array of payments");
+        }
+
+        // If there are errors, throw an exception and rollback the transaction
+        if (invalidRows[0] > 0) {
+            throw new PaymentUploadException(invalidRows[0] + " of " + row + " payments are invalid",
+                    rowErrors, invalidRows[0]);
+        }
 
-            // Check if data format is correct
-            if (isInvalidDate(payment.getPeriod())) {
-                appendStringBuilder(errors, currentPayment, "Date format is wrong");
+        return ResponseEntity.ok(Map.of("status", "Added successfully!", "count", row));
+    }
+
+    private void ingestChunk(List<Payments> chunk, long firstRow, List<PaymentRowErrorDTO> rowErrors, long[] invalidRows) {
+        streamUploadMeters.recordBatchSize(chunk.size());
+        long validationStarted = System.nanoTime();
+
+        // Targeted existence lookups for this chunk only
+        resolveEmployees(chunk);
+        Set<Long> existingPayments = paymentsBatchRepository.findExistingKeys(chunk);
+        Set<String> seenKeys = new HashSet<>();
+
+        for (int i = 0; i < chunk.size(); i++) {
+            Payments payment = chunk.get(i);
+            List<String> errors = validatePayment(payment, seenKeys, existingPayments);
+
+            if (!errors.isEmpty()) {
+                invalidRows[0]++;
+                // Only report a bounded number of rows, the total count is reported separately
+                if (rowErrors.size() < MAX_REPORTED_ROW_ERRORS) {
+                    rowErrors.add(new PaymentRowErrorDTO(firstRow + i, payment.getEmployee(), payment.getPeriod(), errors));
+                }
             }
+        }
 
-            // Check for duplicates in the request body
-            String key = payment.getEmployee() + "-" + payment.getPeriod();
-            if (!duplicateChecker.add(key)) {
-                appendStringBuilder(errors, currentPayment, "Duplicate payment in the request body");
+        streamUploadMeters.recordValidation(validationStarted);
+
+        // Once any row failed the transaction will be rolled back, so skip further inserts
+        if (invalidRows[0] == 0) {
+            long persistStarted = System.nanoTime();
+            paymentsBatchRepository.insertAll(chunk);
+            payrollAggregateService.recordInserted(chunk);
+            streamUploadMeters.recordPersist(persistStarted);
+            paymentResponseCache.bumpAfterCommit(chunk.stream().map(Payments::getEmployee).toList());
+        }
+    }
+
+    // Assign user ids of the employees, with one query for the whole list
+    private void resolveEmployees(List<Payments> payments) {
+        Set<String> emails = payments.stream()
+                .map(Payments::getEmployee)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        assignUserIds(payments, emails.isEmpty() ? Map.of() : appUserRepository.findIdsByEmails(emails));
+    }
+
+    // A JSON array of corrections is applied in bulk, a single object is updated on its own
+    @Transactional
+    public ResponseEntity<?> updatePayments(JsonNode body) {
+        try {
+            if (body.isArray()) {
+                return updatePayments(objectMapper.convertValue(body, new TypeReference<List<Payments>>() {}));
             }
+            return updatePayment(objectMapper.treeToValue(body, Payments.class));
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            throw new ExceptionWithBadRequest("Request body must be a payment or a JSON array of payments");
+        }
+    }
+
+    // Set-based variant of updatePayment: current salaries are read and locked, then all salaries are
+    // set with one MERGE per chunk on the unique (user_id, period) key. All-or-nothing, any row that
+    // doesn't match a stored payment rejects the whole request.
+    private ResponseEntity<?> updatePayments(List<Payments> payments) {
+        Map<Long, Long> currentSalaries = new HashMap<>();
+        for (int from = 0; from < payments.size(); from += UPLOAD_CHUNK_SIZE) {
+            List<Payments> chunk = payments.subList(from, Math.min(from + UPLOAD_CHUNK_SIZE, payments.size()));
+            resolveEmployees(chunk);
+            currentSalaries.putAll(paymentsBatchRepository.findSalariesForUpdate(chunk));
+        }
 
-            // Check if user is present in the database
-            if (!users.containsKey(payment.getEmployee())) {
-                appendStringBuilder(errors, currentPayment, "User is not present in the database");
+        List<PaymentRowErrorDTO> rowErrors = new ArrayList<>();
+        long invalidRows = 0;
+        Set<String> seenKeys = new HashSet<>();
+        long[] previousSalaries = new long[payments.size()];
+
+        for (int i = 0; i < payments.size(); i++) {
+            Payments payment = payments.get(i);
+            int periodKey = parsePeriodKey(payment.getPeriod());
+            long key = paymentKey(payment.getUserId(), periodKey);
+            List<String> errors = new ArrayList<>(0);
+
+            if (periodKey == INVALID_PERIOD) {
+                errors.add("Date format is wrong");
+            } else if (!currentSalaries.containsKey(key)) {
+                errors.add("Payment for the specified employee and period does not exist!");
+            }
+            if (!seenKeys.add(paymentKey(payment))) {
+                errors.add("Duplicate payment in the request body");
             }
 
-            // Check if payment already exists in the database for the same period
-            if (existingPaymentSet.contains(key)) {
-                appendStringBuilder(errors, currentPayment, "Payment was already allocated");
+            if (!errors.isEmpty()) {
+                invalidRows++;
+                if (rowErrors.size() < MAX_REPORTED_ROW_ERRORS) {
+                    rowErrors.add(new PaymentRowErrorDTO(i, payment.getEmployee(), payment.getPeriod(), errors));
+                }
+            } else {
+                previousSalaries[i] = currentSalaries.get(key);
             }
         }
 
         // If there are errors, throw an exception and rollback the transaction
-        if (!errors.isEmpty()) {
-            throw new ExceptionWithBadRequest(errors.toString());
+        if (invalidRows > 0) {
+            throw new PaymentUploadException(invalidRows + " of " + payments.size() + " payments can't be updated",
+                    rowErrors, invalidRows);
         }
 
-        // Save all payments if there are no errors
-        paymentsRepository.saveAll(payments);
+        for (int from = 0; from < payments.size(); from += UPLOAD_CHUNK_SIZE) {
+            paymentsBatchRepository.updateSalaries(payments.subList(from, Math.min(from + UPLOAD_CHUNK_SIZE, payments.size())));
+        }
+        payrollAggregateService.recordSalaryChanges(payments, previousSalaries);
+        paymentResponseCache.bumpAfterCommit(payments.stream().map(Payments::getEmployee).toList());
 
-        return ResponseEntity.ok(Map.of("status", "Added successfully!"));
+        return ResponseEntity.ok(Map.of("status", "Updated successfully!", "count", payments.size()));
     }
 
-    @Transactional
-    public ResponseEntity<?> updatePayment(Payments payment) {
+    private ResponseEntity<?> updatePayment(Payments payment) {
         // Get payment from database based on email and period from provided body
-        Payments existingPayment = paymentsRepository.findByEmployeeAndPeriod(payment.getEmployee(), payment.getPeriod());
+        // Unknown employee or period that can't be parsed can't match any stored payment
+        resolveEmployees(List.of(payment));
+        Payments existingPayment = payment.getUserId() == 0 || isInvalidDate(payment.getPeriod()) ? null
+                : paymentsRepository.findByUserIdAndPeriod(payment.getUserId(), payment.getPeriod());
 
         // If such payment doesn't exist throw error and stop program
         if (existingPayment == null) {
@@ -181,10 +476,13 @@ public class BusinessFunctionalityService {
         }
 
         // Change salary in temporary object
+        long previousSalary = existingPayment.getSalary();
         existingPayment.setSalary(payment.getSalary());
 
-        // Save changed payment object to database
+        // Save changed payment object to database and apply the difference to the aggregates
         paymentsRepository.save(existingPayment);
+        payrollAggregateService.recordSalaryChange(existingPayment, previousSalary);
+        paymentResponseCache.bumpAfterCommit(List.of(payment.getEmployee()));
 
         return ResponseEntity.ok(Map.of("status", "Updated successfully!"));
     }
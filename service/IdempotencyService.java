@@ -0,0 +1,256 @@
+package account.service;
+
+import account.exception.ExceptionWithBadRequest;
+import account.exception.ExceptionWithConflict;
+import account.model.IdempotencyRecord;
+import account.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Makes payroll uploads safe to retry.
+ * An upload sent with an Idempotency-Key header reserves the key before it runs and stores its
+ * response, together with a SHA-256 fingerprint of the body computed while the body is read, in the
+ * same transaction as the payments. A retry with the same key is answered from that record: the body
+ * is only hashed, never parsed or validated, and the payments table is not touched.
+ * Keys are scoped to the accountant sending them. A reserved key is leased to the request running the
+ * upload; if that request dies without completing or releasing the key, a retry takes it over once the
+ * lease ran out, and the original request can no longer complete it.
+ * Keys expire after the retention period and are swept periodically.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    /**
+     * Upload reading its payload from the fingerprinted body.
+     */
+    @FunctionalInterface
+    public interface Upload {
+        ResponseEntity<?> run(InputStream body) throws IOException;
+    }
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Counter executedRequests;
+    private final Counter takenOverRequests;
+    private final Counter replayedRequests;
+    private final Counter inProgressRequests;
+    private final Counter rejectedRequests;
+    private final Duration retention;
+    private final Duration lease;
+    private final Duration sweepInterval;
+
+    private ScheduledExecutorService scheduler;
+
+    public IdempotencyService(IdempotencyRecordRepository recordRepository,
+                              TransactionTemplate transactionTemplate,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${account.payments.idempotency.retention:PT24H}") Duration retention,
+                              @Value("${account.payments.idempotency.lease:PT5M}") Duration lease,
+                              @Value("${account.payments.idempotency.sweep-interval:PT10M}") Duration sweepInterval) {
+        this.recordRepository = recordRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.executedRequests = requestCounter(meterRegistry, "executed");
+        this.takenOverRequests = requestCounter(meterRegistry, "taken_over");
+        this.replayedRequests = requestCounter(meterRegistry, "replayed");
+        this.inProgressRequests = requestCounter(meterRegistry, "in_progress");
+        this.rejectedRequests = requestCounter(meterRegistry, "rejected");
+        this.retention = retention;
+        this.lease = lease;
+        this.sweepInterval = sweepInterval;
+    }
+
+    private static Counter requestCounter(MeterRegistry registry, String result) {
+        return Counter.builder("account.payments.idempotency.requests")
+                .description("Uploads carrying an idempotency key, by how they were answered")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "idempotency-sweep");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = sweepInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::sweepQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Runs the upload once per key, or replays the stored response of an earlier run with the same key.
+     *
+     * @param key the Idempotency-Key header
+     * @param auth the accountant sending the upload
+     * @param body the request body
+     * @param upload the upload, called in a transaction that also completes the key
+     * @return response of the upload, either fresh or replayed
+     * @throws IOException if the body can't be read
+     */
+    public ResponseEntity<?> execute(String key, Authentication auth, InputStream body, Upload upload) throws IOException {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new ExceptionWithBadRequest("Idempotency key must have 1 to " + MAX_KEY_LENGTH + " characters!");
+        }
+
+        String owner = auth.getName().toLowerCase(Locale.ROOT);
+        IdempotencyRecord.Key id = new IdempotencyRecord.Key(owner, key);
+        LocalDateTime now = LocalDateTime.now();
+        IdempotencyRecord record = recordRepository.findById(id).orElse(null);
+
+        // Expired keys are treated as never used, even if the sweep didn't remove them yet
+        if (record != null && record.getExpiresAt().isBefore(now)) {
+            recordRepository.deleteIfExpired(owner, key, now);
+            record = null;
+        }
+
+        String leaseId = UUID.randomUUID().toString();
+        boolean leased = false;
+        if (record == null) {
+            try {
+                recordRepository.insertInProgress(owner, key, leaseId, now.plus(lease), now, now.plus(retention));
+                leased = true;
+            } catch (DataIntegrityViolationException e) {
+                // Another request reserved the same key in the meantime
+                record = recordRepository.findById(id).orElseThrow(() -> e);
+            }
+        }
+
+        // The request holding the key died without completing or releasing it
+        if (record != null && !record.isCompleted() && record.getLockedUntil().isBefore(now)) {
+            leased = recordRepository.takeOver(owner, key, leaseId, now.plus(lease), now) == 1;
+            if (leased) {
+                takenOverRequests.increment();
+            }
+        }
+
+        if (!leased) {
+            return replay(record, body);
+        }
+
+        executedRequests.increment();
+        MessageDigest digest = newDigest();
+        InputStream fingerprinted = new DigestInputStream(body, digest);
+
+        try {
+            return transactionTemplate.execute(status -> {
+                try {
+                    ResponseEntity<?> response = upload.run(fingerprinted);
+
+                    // Parsers may stop at the end of the JSON array, hash whatever follows it too
+                    fingerprinted.transferTo(OutputStream.nullOutputStream());
+                    int completed = recordRepository.complete(owner, key, leaseId, HexFormat.of().formatHex(digest.digest()),
+                            response.getStatusCode().value(), objectMapper.writeValueAsString(response.getBody()));
+                    if (completed == 0) {
+                        // The lease ran out and a retry took the key over, its upload wins
+                        throw new ExceptionWithConflict("Upload with this idempotency key was taken over by a retry!");
+                    }
+                    return response;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            release(owner, key, leaseId);
+            throw e.getCause();
+        } catch (RuntimeException | Error e) {
+            release(owner, key, leaseId);
+            throw e;
+        }
+    }
+
+    private ResponseEntity<?> replay(IdempotencyRecord record, InputStream body) throws IOException {
+        if (!record.isCompleted()) {
+            inProgressRequests.increment();
+            throw new ExceptionWithConflict("Upload with this idempotency key is still in progress!");
+        }
+
+        if (!record.getFingerprint().equals(fingerprint(body))) {
+            rejectedRequests.increment();
+            throw new ExceptionWithBadRequest("Idempotency key was already used for a different payload!");
+        }
+
+        replayedRequests.increment();
+        return ResponseEntity.status(record.getResponseStatus())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(REPLAYED_HEADER, "true")
+                .body(record.getResponseBody());
+    }
+
+    private void release(String owner, String key, String leaseId) {
+        try {
+            recordRepository.release(owner, key, leaseId);
+        } catch (RuntimeException e) {
+            // The key stays reserved until its lease runs out
+            log.error("Failed to release idempotency key {}", key, e);
+        }
+    }
+
+    private String fingerprint(InputStream body) throws IOException {
+        MessageDigest digest = newDigest();
+        try (InputStream in = new DigestInputStream(body, digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private void sweepQuietly() {
+        try {
+            int removed = recordRepository.deleteExpired(LocalDateTime.now());
+            if (removed > 0) {
+                log.debug("Removed {} expired idempotency key(s)", removed);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to remove expired idempotency keys", e);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package account.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Per-employee payment versions and a bounded cache of serialized payment responses.
+ * The version of an employee is bumped after every committed change of their payments, and is used
+ * both as the strong ETag of their payment responses and to tell whether a cached response is current.
+ * Versions start from a random epoch on every startup, so ETags issued before a restart never match.
+ */
+@Component
+public class PaymentResponseCache {
+
+    /**
+     * Serialized response body with the version of the payments it was built from.
+     */
+    public record CachedResponse(long version, byte[] body, String nextCursor) {
+    }
+
+    private final long epoch = ThreadLocalRandom.current().nextLong() >>> 1;
+    private final ConcurrentHashMap<String, Long> versions = new ConcurrentHashMap<>();
+
+    private final int maxSize;
+
+    // Access-ordered map gives LRU iteration order; guarded by "this"
+    private final LinkedHashMap<String, CachedResponse> responses;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public PaymentResponseCache(@Value("${account.payments.response-cache.max-size:10000}") int maxSize) {
+        this.maxSize = maxSize;
+        this.responses = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > PaymentResponseCache.this.maxSize;
+            }
+        };
+    }
+
+    public long currentVersion(String email) {
+        return epoch + versions.getOrDefault(normalize(email), 0L);
+    }
+
+    public String etag(long version) {
+        return "\"" + Long.toHexString(version) + "\"";
+    }
+
+    // Returns true if any entity tag of an If-None-Match header matches the given strong ETag
+    public boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Bump versions once the current transaction commits, or right away outside a transaction
+    // Bumping before commit would let a concurrent reader cache the old payments under the new version
+    public void bumpAfterCommit(Collection<String> emails) {
+        Set<String> keys = emails.stream()
+                .filter(email -> email != null)
+                .map(PaymentResponseCache::normalize)
+                .collect(Collectors.toSet());
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            keys.forEach(this::bump);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                keys.forEach(PaymentResponseCache.this::bump);
+            }
+        });
+    }
+
+    /**
+     * @return cached response for the employee and request variant, or null if there is none for this version
+     */
+    public CachedResponse get(String email, String variant, long version) {
+        CachedResponse response;
+        synchronized (this) {
+            response = responses.get(key(email, variant));
+        }
+
+        if (response == null || response.version() != version) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return response;
+    }
+
+    public void put(String email, String variant, CachedResponse response) {
+        synchronized (this) {
+            responses.put(key(email, variant), response);
+        }
+    }
+
+    public synchronized int size() {
+        return responses.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private void bump(String key) {
+        versions.merge(key, 1L, Long::sum);
+    }
+
+    private static String key(String email, String variant) {
+        return normalize(email) + "?" + variant;
+    }
+
+    private static String normalize(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+}
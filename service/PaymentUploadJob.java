@@ -0,0 +1,144 @@
+package account.service;
+
+import account.model.DTO.PaymentRowErrorDTO;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Progress of one asynchronous payroll upload
+// Written by the job thread and read by status requests, so counters are atomic and the rest volatile
+public class PaymentUploadJob {
+
+    public enum Mode {
+        // Every chunk commits on its own, invalid rows are skipped
+        CHUNKED,
+        // Rows are collected in a staging table and moved to payments only if all of them are valid
+        STAGED
+    }
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private final String id;
+    private final Mode mode;
+    private final String submittedBy;
+    private final Instant submittedAt = Instant.now();
+    private final int maxReportedErrors;
+
+    private final AtomicLong processedRows = new AtomicLong();
+    private final AtomicLong insertedRows = new AtomicLong();
+    private final AtomicLong invalidRows = new AtomicLong();
+    // Guarded by itself
+    private final List<PaymentRowErrorDTO> rowErrors = new ArrayList<>();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile String message;
+    private volatile Instant finishedAt;
+
+    public PaymentUploadJob(String id, Mode mode, String submittedBy, int maxReportedErrors) {
+        this.id = id;
+        this.mode = mode;
+        this.submittedBy = submittedBy;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public void start() {
+        status = Status.RUNNING;
+    }
+
+    public void complete(String message) {
+        finish(Status.COMPLETED, message);
+    }
+
+    public void fail(String message) {
+        finish(Status.FAILED, message);
+    }
+
+    private void finish(Status status, String message) {
+        this.message = message;
+        this.finishedAt = Instant.now();
+        this.status = status;
+    }
+
+    public void addRowError(PaymentRowErrorDTO error) {
+        invalidRows.incrementAndGet();
+        // Only report a bounded number of rows, the total count is reported separately
+        synchronized (rowErrors) {
+            if (rowErrors.size() < maxReportedErrors) {
+                rowErrors.add(error);
+            }
+        }
+    }
+
+    public void addProcessed(long rows) {
+        processedRows.addAndGet(rows);
+    }
+
+    public void addInserted(long rows) {
+        insertedRows.addAndGet(rows);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public String getSubmittedBy() {
+        return submittedBy;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getProcessedRows() {
+        return processedRows.get();
+    }
+
+    public long getInsertedRows() {
+        return insertedRows.get();
+    }
+
+    public long getInvalidRows() {
+        return invalidRows.get();
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public boolean isFinished() {
+        Status current = status;
+        return current == Status.COMPLETED || current == Status.FAILED;
+    }
+
+    // Response body of a status request
+    public Map<String, Object> toBody() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("jobId", id);
+        body.put("mode", mode.name().toLowerCase());
+        body.put("status", status.name());
+        body.put("submittedBy", submittedBy);
+        body.put("submittedAt", submittedAt.toString());
+        body.put("finishedAt", finishedAt == null ? null : finishedAt.toString());
+        body.put("processedRows", processedRows.get());
+        body.put("insertedRows", insertedRows.get());
+        body.put("invalidRows", invalidRows.get());
+        body.put("message", message);
+        synchronized (rowErrors) {
+            body.put("errors", List.copyOf(rowErrors));
+        }
+        return body;
+    }
+}
@@ -0,0 +1,376 @@
+package account.service;
+
+import account.exception.ExceptionWithBadRequest;
+import account.exception.ExceptionWithNotFound;
+import account.exception.ExceptionWithPayloadTooLarge;
+import account.exception.ExceptionWithServiceUnavailable;
+import account.model.Payments;
+import account.model.DTO.PaymentRowErrorDTO;
+import account.repository.AppUserRepository;
+import account.repository.PaymentStagingRepository;
+import account.repository.PaymentsBatchRepository;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static account.service.util.BusinessFunctionalityUtil.*;
+
+/**
+ * Runs payroll uploads in the background, so the request only has to receive the payload.
+ * The body is spooled to a temporary file and parsed by a job on a bounded pool; accountants poll
+ * the job for its status, progress counters and per-row errors.
+ * A job slot is reserved before anything is spooled and the spooled size is capped, so rejected
+ * uploads never touch the disk and accepted ones can't fill it.
+ * In chunked mode every chunk is validated and inserted in its own short transaction and invalid
+ * rows are skipped. In staged mode valid rows are written to a staging table and moved to payments
+ * in one final transaction only if no row was invalid, which keeps the upload all-or-nothing
+ * without holding a transaction open while the payload is parsed.
+ */
+@Slf4j
+@Service
+public class PaymentUploadJobService {
+
+    // Rows validated and inserted together, each chunk in its own transaction
+    private static final int UPLOAD_CHUNK_SIZE = 1000;
+
+    // Upper bound of row errors kept per job
+    private static final int MAX_REPORTED_ROW_ERRORS = 1000;
+
+    private final AppUserRepository appUserRepository;
+    private final PaymentsBatchRepository paymentsBatchRepository;
+    private final PaymentStagingRepository stagingRepository;
+    private final PayrollAggregateService payrollAggregateService;
+    private final PaymentResponseCache paymentResponseCache;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final DistributionSummary batchSize;
+    // Job durations by mode and final status
+    private final Map<PaymentUploadJob.Mode, Map<PaymentUploadJob.Status, Timer>> jobTimers =
+            new EnumMap<>(PaymentUploadJob.Mode.class);
+    private final Duration retention;
+    private final long maxPayloadBytes;
+
+    private final ThreadPoolExecutor executor;
+    // Jobs running or queued, released when a job finishes or couldn't be submitted
+    private final Semaphore slots;
+    private final Map<String, PaymentUploadJob> jobs = new ConcurrentHashMap<>();
+
+    public PaymentUploadJobService(AppUserRepository appUserRepository,
+                                   PaymentsBatchRepository paymentsBatchRepository,
+                                   PaymentStagingRepository stagingRepository,
+                                   PayrollAggregateService payrollAggregateService,
+                                   PaymentResponseCache paymentResponseCache,
+                                   TransactionTemplate transactionTemplate,
+                                   ObjectMapper objectMapper,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${account.payments.jobs.threads:2}") int threads,
+                                   @Value("${account.payments.jobs.queue-capacity:16}") int queueCapacity,
+                                   @Value("${account.payments.jobs.retention:PT1H}") Duration retention,
+                                   @Value("${account.payments.jobs.max-payload:100MB}") DataSize maxPayload) {
+        this.appUserRepository = appUserRepository;
+        this.paymentsBatchRepository = paymentsBatchRepository;
+        this.stagingRepository = stagingRepository;
+        this.payrollAggregateService = payrollAggregateService;
+        this.paymentResponseCache = paymentResponseCache;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = DistributionSummary.builder("account.payments.upload.batch.size")
+                .description("Payments validated and inserted together")
+                .tag("mode", "job")
+                .register(meterRegistry);
+        for (PaymentUploadJob.Mode mode : PaymentUploadJob.Mode.values()) {
+            Map<PaymentUploadJob.Status, Timer> timers = new EnumMap<>(PaymentUploadJob.Status.class);
+            for (PaymentUploadJob.Status status : List.of(PaymentUploadJob.Status.COMPLETED, PaymentUploadJob.Status.FAILED)) {
+                timers.put(status, Timer.builder("account.payments.upload.job")
+                        .description("Time from start to end of a background upload job")
+                        .tag("mode", mode.name().toLowerCase())
+                        .tag("status", status.name())
+                        .register(meterRegistry));
+            }
+            jobTimers.put(mode, timers);
+        }
+        this.retention = retention;
+        this.maxPayloadBytes = maxPayload.toBytes();
+        this.slots = new Semaphore(threads + queueCapacity);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "payment-upload-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    // Jobs don't survive a restart, so rows staged by them can never be moved
+    @EventListener(ApplicationReadyEvent.class)
+    public void discardOrphanedStaging() {
+        int rows = stagingRepository.deleteAll();
+        if (rows > 0) {
+            log.warn("Discarded {} staged payment(s) of interrupted upload jobs", rows);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public ResponseEntity<?> submit(InputStream body, Optional<String> mode, Authentication auth) throws IOException {
+        PaymentUploadJob.Mode jobMode = parseMode(mode.orElse("chunked"));
+        purgeFinishedJobs();
+
+        // Reserve the job's place in the pool first, so a full pool rejects the upload before it is read
+        if (!slots.tryAcquire()) {
+            throw new ExceptionWithServiceUnavailable("Too many upload jobs in progress, try again later!");
+        }
+
+        Path payload;
+        try {
+            payload = spool(body);
+        } catch (IOException | RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+
+        PaymentUploadJob job = new PaymentUploadJob(UUID.randomUUID().toString(), jobMode, auth.getName(),
+                MAX_REPORTED_ROW_ERRORS);
+        jobs.put(job.getId(), job);
+
+        try {
+            executor.execute(() -> {
+                try {
+                    run(job, payload);
+                } finally {
+                    slots.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            slots.release();
+            jobs.remove(job.getId());
+            Files.deleteIfExists(payload);
+            throw new ExceptionWithServiceUnavailable("Too many upload jobs in progress, try again later!");
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("jobId", job.getId());
+        response.put("status", job.getStatus().name());
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header("Location", "/api/acct/payments/jobs/" + job.getId())
+                .body(response);
+    }
+
+    // Spool the payload, so the job doesn't depend on the request and memory use stays bounded
+    // Copying stops as soon as the payload exceeds the configured maximum
+    private Path spool(InputStream body) throws IOException {
+        Path payload = Files.createTempFile("payment-upload-", ".json");
+        try (OutputStream out = Files.newOutputStream(payload)) {
+            byte[] buffer = new byte[8192];
+            long size = 0;
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                size += read;
+                if (size > maxPayloadBytes) {
+                    throw new ExceptionWithPayloadTooLarge("Upload exceeds the maximum size of " + maxPayloadBytes + " bytes!");
+                }
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(payload);
+            throw e;
+        }
+        return payload;
+    }
+
+    // Jobs of other accountants look like unknown ones, their errors carry employee emails and salaries
+    public ResponseEntity<?> getStatus(String jobId, Authentication auth) {
+        PaymentUploadJob job = jobs.get(jobId);
+        if (job == null || !job.getSubmittedBy().equalsIgnoreCase(auth.getName())) {
+            throw new ExceptionWithNotFound("Upload job not found!");
+        }
+        return ResponseEntity.ok(job.toBody());
+    }
+
+    public int getQueuedJobs() {
+        return executor.getQueue().size();
+    }
+
+    public int getRunningJobs() {
+        return executor.getActiveCount();
+    }
+
+    private PaymentUploadJob.Mode parseMode(String mode) {
+        for (PaymentUploadJob.Mode value : PaymentUploadJob.Mode.values()) {
+            if (value.name().equalsIgnoreCase(mode)) {
+                return value;
+            }
+        }
+        throw new ExceptionWithBadRequest("Unknown upload mode!");
+    }
+
+    // Forget jobs that finished longer than the retention period ago
+    private void purgeFinishedJobs() {
+        Instant threshold = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(threshold));
+    }
+
+    private void run(PaymentUploadJob job, Path payload) {
+        job.start();
+        long started = System.nanoTime();
+        boolean staged = job.getMode() == PaymentUploadJob.Mode.STAGED;
+
+        try (InputStream in = Files.newInputStream(payload);
+             JsonParser parser = objectMapper.getFactory().createParser(in)) {
+
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new ExceptionWithBadRequest("Request body must be a JSON array of payments");
+            }
+
+            // Keys of every row of the job, so duplicates are found across chunks too
+            Set<String> seenKeys = new HashSet<>();
+            List<Payments> chunk = new ArrayList<>(UPLOAD_CHUNK_SIZE);
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                chunk.add(objectMapper.readValue(parser, Payments.class));
+
+                if (chunk.size() == UPLOAD_CHUNK_SIZE) {
+                    processChunk(job, chunk, seenKeys);
+                    chunk.clear();
+                }
+            }
+            // Anything but the end of the array means a malformed or truncated payload
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                throw new ExceptionWithBadRequest("Request body must be a JSON array of payments");
+            }
+            if (!chunk.isEmpty()) {
+                processChunk(job, chunk, seenKeys);
+            }
+
+            if (!staged) {
+                job.complete(job.getInsertedRows() + " of " + job.getProcessedRows() + " payments added");
+            } else if (job.getInvalidRows() > 0) {
+                stagingRepository.deleteJob(job.getId());
+                job.fail(job.getInvalidRows() + " of " + job.getProcessedRows() + " payments are invalid");
+            } else {
+                commitStaged(job);
+                job.complete("Added successfully!");
+            }
+        } catch (Exception e) {
+            if (staged) {
+                discardStaged(job);
+            }
+            job.fail(e instanceof ExceptionWithBadRequest ? e.getMessage() : "Upload failed: " + e.getMessage());
+            if (!(e instanceof ExceptionWithBadRequest)) {
+                log.error("Payment upload job {} failed", job.getId(), e);
+            }
+        } finally {
+            // Every path above completes or fails the job
+            jobTimers.get(job.getMode()).get(job.getStatus()).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            try {
+                Files.deleteIfExists(payload);
+            } catch (IOException e) {
+                log.warn("Failed to delete upload payload {}", payload, e);
+            }
+        }
+    }
+
+    private void processChunk(PaymentUploadJob job, List<Payments> chunk, Set<String> seenKeys) {
+        long firstRow = job.getProcessedRows();
+        batchSize.record(chunk.size());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            // Targeted existence lookups for this chunk only
+            resolveEmployees(chunk);
+            Set<Long> existingPayments = paymentsBatchRepository.findExistingKeys(chunk);
+
+            List<Payments> valid = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                Payments payment = chunk.get(i);
+                List<String> errors = validatePayment(payment, seenKeys, existingPayments);
+
+                if (errors.isEmpty()) {
+                    valid.add(payment);
+                } else {
+                    job.addRowError(new PaymentRowErrorDTO(firstRow + i, payment.getEmployee(), payment.getPeriod(), errors));
+                }
+            }
+
+            if (valid.isEmpty()) {
+                return;
+            }
+
+            if (job.getMode() == PaymentUploadJob.Mode.CHUNKED) {
+                paymentsBatchRepository.insertAll(valid);
+                payrollAggregateService.recordInserted(valid);
+                paymentResponseCache.bumpAfterCommit(valid.stream().map(Payments::getEmployee).toList());
+                job.addInserted(valid.size());
+            } else if (job.getInvalidRows() == 0) {
+                // Once any row failed nothing will be moved, so only validation continues
+                stagingRepository.insertAll(job.getId(), valid);
+            }
+        });
+
+        job.addProcessed(chunk.size());
+    }
+
+    // Move all staged rows to payments in one transaction
+    private void commitStaged(PaymentUploadJob job) {
+        int inserted = transactionTemplate.execute(status -> {
+            // Payments added by other uploads since the rows were validated
+            long conflicts = stagingRepository.countConflicts(job.getId());
+            if (conflicts > 0) {
+                throw new ExceptionWithBadRequest(conflicts + " payments were allocated by another upload in the meantime");
+            }
+
+            List<String> employees = stagingRepository.findEmployees(job.getId());
+            int moved = stagingRepository.moveToPayments(job.getId());
+            payrollAggregateService.recordStaged(job.getId());
+            stagingRepository.deleteJob(job.getId());
+            paymentResponseCache.bumpAfterCommit(employees);
+            return moved;
+        });
+        job.addInserted(inserted);
+    }
+
+    private void discardStaged(PaymentUploadJob job) {
+        try {
+            stagingRepository.deleteJob(job.getId());
+        } catch (RuntimeException e) {
+            log.error("Failed to discard staged payments of upload job {}", job.getId(), e);
+        }
+    }
+
+    // Assign user ids of the employees, with one query for the whole chunk
+    private void resolveEmployees(List<Payments> payments) {
+        Set<String> emails = payments.stream()
+                .map(Payments::getEmployee)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        assignUserIds(payments, emails.isEmpty() ? Map.of() : appUserRepository.findIdsByEmails(emails));
+    }
+}
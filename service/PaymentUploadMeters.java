@@ -0,0 +1,45 @@
+package account.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batch size, validation and persist meters of one payment upload mode.
+ * Meters are registered once, so recording an upload chunk doesn't look them up in the registry.
+ */
+class PaymentUploadMeters {
+
+    private final DistributionSummary batchSize;
+    private final Timer validationTimer;
+    private final Timer persistTimer;
+
+    PaymentUploadMeters(MeterRegistry registry, String mode) {
+        this.batchSize = DistributionSummary.builder("account.payments.upload.batch.size")
+                .description("Payments validated and inserted together")
+                .tag("mode", mode)
+                .register(registry);
+        this.validationTimer = Timer.builder("account.payments.upload.validation")
+                .description("Time spent validating a batch of uploaded payments")
+                .tag("mode", mode)
+                .register(registry);
+        this.persistTimer = Timer.builder("account.payments.upload.persist")
+                .description("Time spent inserting a batch of uploaded payments")
+                .tag("mode", mode)
+                .register(registry);
+    }
+
+    void recordBatchSize(int size) {
+        batchSize.record(size);
+    }
+
+    void recordValidation(long startedNanos) {
+        validationTimer.record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordPersist(long startedNanos) {
+        persistTimer.record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,251 @@
+package account.service;
+
+import account.exception.ExceptionWithBadRequest;
+import account.exception.ExceptionWithConflict;
+import account.model.AppUser;
+import account.model.EmployeeYearTotal;
+import account.model.Payments;
+import account.model.PeriodPayrollTotal;
+import account.repository.AppUserRepository;
+import account.repository.EmployeeYearTotalRepository;
+import account.repository.PayrollAggregateBatchRepository;
+import account.repository.PeriodPayrollTotalRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static account.service.util.BusinessFunctionalityUtil.*;
+
+// Maintains payroll sums per period and per employee and year, so dashboards read them by primary key
+// instead of scanning payments. Writers apply their deltas in the same transaction as the payments,
+// so the sums commit or roll back together with the rows they describe.
+// A rebuild corrects the sums by the drift it finds instead of replacing them, so it never has to
+// stop writers.
+@Service
+public class PayrollAggregateService {
+
+    private final PeriodPayrollTotalRepository periodTotalRepository;
+    private final EmployeeYearTotalRepository employeeYearTotalRepository;
+    private final PayrollAggregateBatchRepository aggregateBatchRepository;
+    private final AppUserRepository appUserRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate snapshotTemplate;
+    private final int rebuildParallelism;
+
+    // Two rebuilds running at once would both apply the same correction
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    public PayrollAggregateService(PeriodPayrollTotalRepository periodTotalRepository,
+                                   EmployeeYearTotalRepository employeeYearTotalRepository,
+                                   PayrollAggregateBatchRepository aggregateBatchRepository,
+                                   AppUserRepository appUserRepository,
+                                   TransactionTemplate transactionTemplate,
+                                   @Value("${account.payroll.rebuild-parallelism:4}") int rebuildParallelism) {
+        this.periodTotalRepository = periodTotalRepository;
+        this.employeeYearTotalRepository = employeeYearTotalRepository;
+        this.aggregateBatchRepository = aggregateBatchRepository;
+        this.appUserRepository = appUserRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.rebuildParallelism = rebuildParallelism;
+
+        // Serializable makes H2 read every table of the transaction from one snapshot
+        this.snapshotTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+        this.snapshotTemplate.setReadOnly(true);
+    }
+
+    // Add newly inserted payments to the sums
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordInserted(List<Payments> payments) {
+        Deltas deltas = new Deltas();
+        for (Payments payment : payments) {
+            deltas.add(payment.getUserId(), toPeriodKey(payment.getPeriod()), payment.getSalary(), 1);
+        }
+        apply(deltas);
+    }
+
+    // Add payments of a staged upload job, must run in the transaction moving them out of staging
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordStaged(String jobId) {
+        aggregateBatchRepository.mergeStagedDeltas(jobId);
+    }
+
+    // Apply the difference between the new and the previous salary of an existing payment
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordSalaryChange(Payments payment, long previousSalary) {
+        recordSalaryChanges(List.of(payment), new long[]{previousSalary});
+    }
+
+    // Apply salary differences of many updated payments, previousSalaries[i] belongs to payments[i]
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordSalaryChanges(List<Payments> payments, long[] previousSalaries) {
+        Deltas deltas = new Deltas();
+        for (int i = 0; i < payments.size(); i++) {
+            Payments payment = payments.get(i);
+            long difference = payment.getSalary() - previousSalaries[i];
+            if (difference != 0) {
+                deltas.add(payment.getUserId(), toPeriodKey(payment.getPeriod()), difference, 0);
+            }
+        }
+        apply(deltas);
+    }
+
+    private void apply(Deltas deltas) {
+        if (deltas.periods.isEmpty()) {
+            return;
+        }
+        // Keys are sorted, so concurrent writers lock aggregate rows in the same order
+        aggregateBatchRepository.mergePeriodDeltas(deltas.periods);
+        aggregateBatchRepository.mergeEmployeeYearDeltas(deltas.employeeYears);
+    }
+
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> getSummary(Optional<String> period, Optional<String> employee, Optional<Integer> year) {
+        if (period.isPresent()) {
+            return getPeriodSummary(period.get());
+        }
+        if (employee.isPresent() && year.isPresent()) {
+            return getEmployeeYearSummary(employee.get(), year.get());
+        }
+        throw new ExceptionWithBadRequest("Specify either period or employee and year!");
+    }
+
+    private ResponseEntity<?> getPeriodSummary(String period) {
+        int periodKey = parsePeriodKey(period);
+        if (periodKey == INVALID_PERIOD) {
+            throw new ExceptionWithBadRequest("Date format is wrong");
+        }
+
+        PeriodPayrollTotal total = periodTotalRepository.findById(periodKey)
+                .orElse(new PeriodPayrollTotal(periodKey, 0, 0));
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("period", convertPeriodKeyToMonthName(periodKey));
+        body.put("headcount", total.getHeadcount());
+        body.put("totalSalary", total.getTotalSalary());
+        body.put("total", convertSalaryToString(total.getTotalSalary()));
+        return ResponseEntity.ok(body);
+    }
+
+    private ResponseEntity<?> getEmployeeYearSummary(String employee, int year) {
+        if (year < 1 || year > 9999) {
+            throw new ExceptionWithBadRequest("Year is out of range");
+        }
+
+        // Unknown employees have no payments, so their sums are zero
+        AppUser user = appUserRepository.findByEmailIgnoreCase(employee);
+        long userId = user == null ? 0 : user.getId();
+        EmployeeYearTotal total = employeeYearTotalRepository.findById(new EmployeeYearTotal.Key(userId, year))
+                .orElse(new EmployeeYearTotal(userId, year, 0, 0));
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("employee", employee);
+        body.put("year", year);
+        body.put("payments", total.getPayments());
+        body.put("totalSalary", total.getTotalSalary());
+        body.put("total", convertSalaryToString(total.getTotalSalary()));
+        return ResponseEntity.ok(body);
+    }
+
+    // Bring all aggregates back in line with payments, e.g. after they were changed outside the application
+    // Every year is checked by its own fork/join task, which reads the payments and the aggregates of the
+    // year from one snapshot. Writers change both in the same transaction, so the difference between them
+    // is only the drift, and adding it to the current sums stays correct whatever was written since.
+    public ResponseEntity<?> rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new ExceptionWithConflict("A rebuild is already running!");
+        }
+
+        Deltas corrections;
+        try {
+            List<Integer> years = aggregateBatchRepository.findAggregateYears();
+            ForkJoinPool pool = new ForkJoinPool(rebuildParallelism);
+            try {
+                corrections = years.isEmpty() ? new Deltas() : pool.invoke(new RebuildTask(years, 0, years.size()));
+            } finally {
+                pool.shutdown();
+            }
+
+            // Keys are sorted, so the rebuild locks aggregate rows in the same order as writers
+            transactionTemplate.executeWithoutResult(status -> {
+                aggregateBatchRepository.mergePeriodDeltas(corrections.periods);
+                aggregateBatchRepository.mergeEmployeeYearDeltas(corrections.employeeYears);
+            });
+        } finally {
+            rebuilding.set(false);
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", "Rebuilt successfully!");
+        body.put("correctedPeriods", corrections.periods.size());
+        body.put("correctedEmployeeYears", corrections.employeeYears.values().stream().mapToInt(Map::size).sum());
+        return ResponseEntity.ok(body);
+    }
+
+    // Corrections of a contiguous range of years, splitting it until each task covers a single year
+    private class RebuildTask extends RecursiveTask<Deltas> {
+
+        private final List<Integer> years;
+        private final int from;
+        private final int to;
+
+        private RebuildTask(List<Integer> years, int from, int to) {
+            this.years = years;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Deltas compute() {
+            if (to - from == 1) {
+                int year = years.get(from);
+                return snapshotTemplate.execute(status -> {
+                    Deltas result = new Deltas();
+                    result.periods.putAll(aggregateBatchRepository.findPeriodCorrections(year * 100 + 1, year * 100 + 12));
+                    result.employeeYears.putAll(aggregateBatchRepository.findEmployeeYearCorrections(year));
+                    return result;
+                });
+            }
+
+            int middle = (from + to) >>> 1;
+            RebuildTask left = new RebuildTask(years, from, middle);
+            left.fork();
+            Deltas result = new RebuildTask(years, middle, to).compute();
+            result.merge(left.join());
+            return result;
+        }
+    }
+
+    // Deltas summed per aggregate row, so each row is merged once per transaction
+    private static class Deltas {
+        private final Map<Integer, long[]> periods = new TreeMap<>();
+        private final Map<Long, Map<Integer, long[]>> employeeYears = new TreeMap<>();
+
+        private void add(long userId, int periodKey, long salary, long count) {
+            long[] period = periods.computeIfAbsent(periodKey, k -> new long[2]);
+            period[0] += salary;
+            period[1] += count;
+
+            long[] employeeYear = employeeYears.computeIfAbsent(userId, k -> new TreeMap<>())
+                    .computeIfAbsent(periodKey / 100, k -> new long[2]);
+            employeeYear[0] += salary;
+            employeeYear[1] += count;
+        }
+
+        // Add the deltas of other years
+        private void merge(Deltas other) {
+            periods.putAll(other.periods);
+            other.employeeYears.forEach((userId, years) ->
+                    employeeYears.computeIfAbsent(userId, k -> new TreeMap<>()).putAll(years));
+        }
+    }
+}
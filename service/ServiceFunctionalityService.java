@@ -1,15 +1,21 @@
 package account.service;
 
+import account.config.RoleRegistry;
+import account.config.TokenVersionRegistry;
+import account.config.VerifiedCredentialCache;
+import account.event.LoginAttemptTracker;
 import account.event.UserEventPublisher;
 import account.exception.ExceptionWithBadRequest;
 import account.exception.ExceptionWithNotFound;
 import account.model.AppUser;
 import account.model.DTO.RoleChangeDTO;
 import account.model.DTO.UserBlockedStatusChangeDTO;
+import account.model.DTO.UserInfoDTO;
 import account.model.Role;
 import account.repository.AppUserRepository;
-import account.repository.LoginAttemptRepository;
-import account.repository.RoleRepository;
+import account.repository.PaymentsRepository;
+import account.repository.UserListingRepository;
+import account.service.util.PaginationUtil;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -20,32 +26,59 @@ import org.springframework.stereotype.Service;
 
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+
+import static account.service.util.PaginationUtil.*;
 
 @Service
 @RequiredArgsConstructor
 public class ServiceFunctionalityService {
 
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final AppUserRepository appUserRepository;
-    private final RoleRepository roleRepository;
-    private final LoginAttemptRepository attemptRepository;
+    private final RoleRegistry roleRegistry;
+    private final LoginAttemptTracker attemptTracker;
     private final UserEventPublisher publisher;
-
-    public ResponseEntity<?> displayInformation() {
-        // Load users from repository
-        List<AppUser> users = appUserRepository.findAll();
+    private final VerifiedCredentialCache credentialCache;
+    private final TokenVersionRegistry tokenVersions;
+    private final PaymentResponseCache paymentResponseCache;
+    private final PaymentsRepository paymentsRepository;
+    private final UserListingRepository userListingRepository;
+
+    public ResponseEntity<?> displayInformation(Optional<String> cursor, Optional<Integer> limit,
+                                                Optional<String> role, Optional<Boolean> blocked) {
+        // Without paging parameters list all users, as before
+        boolean paged = cursor.isPresent() || limit.isPresent();
+        int pageSize = paged ? resolveLimit(limit, DEFAULT_PAGE_SIZE, MAX_PAGE_SIZE) : 0;
+        long afterId = cursor.map(PaginationUtil::decodeCursor).orElse(0L);
+        String roleName = role.map(name -> "ROLE_" + name.toUpperCase(Locale.ROOT)).orElse(null);
+
+        // Load users with their role names in one query, already sorted in ascending order by id
+        // Fetch one extra row to find out whether another page follows
+        List<UserInfoDTO> users = userListingRepository.findPage(afterId, roleName, blocked.orElse(null),
+                paged ? pageSize + 1 : 0);
 
         // If no users are present in repository return empty body
         if (users.isEmpty()) {
             return ResponseEntity.ok(Map.of());
         }
 
-        // Else return users sorted in ascending order by id
-        return ResponseEntity.ok(users.stream().sorted().collect(Collectors.toList()));
+        // If there are more users than requested return cursor pointing after the last returned user
+        if (paged && users.size() > pageSize) {
+            users = users.subList(0, pageSize);
+            String nextCursor = encodeCursor(users.get(pageSize - 1).getId());
+            return ResponseEntity.ok().header(NEXT_CURSOR_HEADER, nextCursor).body(users);
+        }
+
+        return ResponseEntity.ok(users);
     }
 
+    @Transactional
     public ResponseEntity<?> deleteUser(String email, Authentication auth, HttpServletRequest request) {
         // Find the user by email
         AppUser user = appUserRepository.findByEmailIgnoreCase(email);
@@ -56,16 +89,24 @@ public class ServiceFunctionalityService {
         }
 
         // Check if user is an administrator
-        boolean isAdmin = user.getRoles().stream()
-                .anyMatch(role -> role.getName().equals("ROLE_ADMINISTRATOR"));
+        boolean isAdmin = roleRegistry.isAdministrative(roleRegistry.maskOf(user.getRoles()));
 
         // If user is an administrator throw exception as admin cannot be deleted
         if (isAdmin) {
             throw new ExceptionWithBadRequest("Can't remove ADMINISTRATOR role!");
         }
 
+        // Payroll history is kept, so employees with payments can't be deleted
+        if (paymentsRepository.existsByUserId(user.getId())) {
+            throw new ExceptionWithBadRequest("Can't delete a user with payments!");
+        }
+
         // After passing check delete user from repository
         appUserRepository.delete(user);
+        credentialCache.evictUserAfterCommit(user.getEmail());
+        tokenVersions.bumpAfterCommit(user.getEmail());
+        // A new account with the same email must not match ETags of the deleted one
+        paymentResponseCache.bumpAfterCommit(List.of(user.getEmail()));
 
         // Prepare response body
         Map<String, Object> body = new LinkedHashMap<>();
@@ -76,7 +117,7 @@ public class ServiceFunctionalityService {
         String subject = auth.getName();
         String path = request.getRequestURI();
 
-        publisher.publishEvent("DELETE_USER", subject, email, path);
+        publisher.publishEvent("DELETE_USER", subject, email, path, user.getEmail());
 
         return ResponseEntity.ok(body);
     }
@@ -90,7 +131,7 @@ public class ServiceFunctionalityService {
 
         // Validation steps
         // Step 1: Check if the requested role exists in the repository
-        Role roleToChange = roleRepository.findByName(body.getRole());
+        Role roleToChange = roleRegistry.get(body.getRole());
         if (roleToChange == null) {
             throw new ExceptionWithNotFound("Role not found!");
         }
@@ -107,7 +148,7 @@ public class ServiceFunctionalityService {
             }
 
             // Step 3: Prevent removing the ADMINISTRATOR role
-            if (roleToChange.getName().equals("ROLE_ADMINISTRATOR")) {
+            if (roleToChange.getName().equals(RoleRegistry.ROLE_ADMINISTRATOR)) {
                 throw new ExceptionWithBadRequest("Can't remove ADMINISTRATOR role!");
             }
 
@@ -118,13 +159,13 @@ public class ServiceFunctionalityService {
         }
 
         // Step 5: Check for conflicting role assignments
-        Set<Role> adminRoles = Set.of(new Role("ROLE_ADMINISTRATOR"));
-        Set<Role> businessRoles = Set.of(new Role("ROLE_ACCOUNTANT"), new Role("ROLE_USER"), new Role("ROLE_AUDITOR"));
+        long userMask = roleRegistry.maskOf(userRoles);
+        long newRoleMask = roleRegistry.maskOf(roleToChange);
 
-        boolean isRoleAdmin = userRoles.stream().anyMatch(adminRoles::contains);
-        boolean isRoleBusiness = userRoles.stream().anyMatch(businessRoles::contains);
-        boolean isNewRoleAdmin = roleToChange.getName().equals("ROLE_ADMINISTRATOR");
-        boolean isNewRoleBusiness = businessRoles.contains(roleToChange);
+        boolean isRoleAdmin = roleRegistry.isAdministrative(userMask);
+        boolean isRoleBusiness = roleRegistry.isBusiness(userMask);
+        boolean isNewRoleAdmin = roleRegistry.isAdministrative(newRoleMask);
+        boolean isNewRoleBusiness = roleRegistry.isBusiness(newRoleMask);
 
         if ((isRoleAdmin && isNewRoleBusiness) || (isRoleBusiness && isNewRoleAdmin)) {
             throw new ExceptionWithBadRequest("The user cannot combine administrative and business roles!");
@@ -158,8 +199,10 @@ public class ServiceFunctionalityService {
 
         // Save the user with updated roles
         appUserRepository.save(user);
+        credentialCache.evictUserAfterCommit(user.getEmail());
+        tokenVersions.bumpAfterCommit(user.getEmail());
 
-        publisher.publishEvent(action, subject, object, path);
+        publisher.publishEvent(action, subject, object, path, user.getEmail());
 
         return ResponseEntity.ok(user);
     }
@@ -175,7 +218,7 @@ public class ServiceFunctionalityService {
         }
 
         // Check if user from body is an admin
-        if (user.getRoles().contains(new Role("ROLE_ADMINISTRATOR"))) {
+        if (roleRegistry.isAdministrative(roleRegistry.maskOf(user.getRoles()))) {
             throw new ExceptionWithBadRequest("Can't lock the ADMINISTRATOR!");
         }
 
@@ -213,12 +256,14 @@ public class ServiceFunctionalityService {
             action = "UNLOCK_USER";
             subject = auth.getName();
             object = "Unlock user " + user.getEmail();
-            attemptRepository.deleteByEmail(userEmail);
+            attemptTracker.reset(userEmail);
         }
         appUserRepository.save(user);
+        credentialCache.evictUserAfterCommit(userEmail);
+        tokenVersions.bumpAfterCommit(userEmail);
 
         // Log LOCK_USER or UNLOCK_USER event
-        publisher.publishEvent(action, subject, object, path);
+        publisher.publishEvent(action, subject, object, path, userEmail);
 
         // Return response body
         String performedOperation = isBodyRequestingBlocking ? "locked" : "unlocked";
@@ -1,39 +1,61 @@
 package account.service.util;
 
-import account.model.DTO.PasswordListDTO;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.springframework.core.io.ClassPathResource;
-import org.springframework.core.io.Resource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.util.List;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 
 @Service
 public class BreachedPasswordChecker {
 
-    private static final List<String> passwordList;
+    private final String indexPath;
 
-    // Static block to load password list from JSON file using InputStream
-    static {
-        try {
-            // Load the passwords.json from the resources folder using InputStream
-            Resource resource = new ClassPathResource("passwords.json");
-            InputStream inputStream = resource.getInputStream();
+    // Index is loaded on first use, so the corpus doesn't slow down application startup
+    private volatile BreachedPasswordIndex index;
 
-            // Use ObjectMapper to map InputStream to PasswordListDTO class
-            passwordList = new ObjectMapper().readValue(inputStream, PasswordListDTO.class).getPasswords();
+    // If no precompiled index is configured fall back to passwords.json from the classpath
+    @Autowired
+    public BreachedPasswordChecker(@Value("${account.breached-passwords.index:}") String indexPath) {
+        this.indexPath = indexPath;
+    }
 
-            // Close InputStream
-            inputStream.close();
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to load breached passwords list");
-        }
+    // Allows plugging in any index implementation directly
+    public BreachedPasswordChecker(BreachedPasswordIndex index) {
+        this.indexPath = "";
+        this.index = index;
     }
 
     // Method to check if the password is in the breached list
-    public static boolean isPasswordBreached(String newPassword) {
-        return passwordList.contains(newPassword);
+    public boolean isPasswordBreached(String newPassword) {
+        return getIndex().contains(newPassword);
+    }
+
+    private BreachedPasswordIndex getIndex() {
+        BreachedPasswordIndex current = index;
+        if (current == null) {
+            synchronized (this) {
+                current = index;
+                if (current == null) {
+                    current = loadIndex();
+                    index = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private BreachedPasswordIndex loadIndex() {
+        if (indexPath.isBlank()) {
+            return InMemoryBreachedPasswordIndex.fromClasspath("passwords.json");
+        }
+
+        try {
+            return MappedBreachedPasswordIndex.open(Path.of(indexPath));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load breached passwords index " + indexPath, e);
+        }
     }
-}
\ No newline at end of file
+}
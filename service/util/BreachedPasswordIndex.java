@@ -0,0 +1,10 @@
+package account.service.util;
+
+/**
+ * Lookup structure holding the breached passwords corpus.
+ * Implementations must be safe for concurrent use.
+ */
+public interface BreachedPasswordIndex {
+
+    boolean contains(String password);
+}
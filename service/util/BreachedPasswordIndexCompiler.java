@@ -0,0 +1,109 @@
+package account.service.util;
+
+import account.model.DTO.PasswordListDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static account.service.util.MappedBreachedPasswordIndex.*;
+
+/**
+ * Offline build step producing the binary artifact read by {@link MappedBreachedPasswordIndex}.
+ * Accepts either a passwords.json file ({"passwords": [...]}) or a plain text file with one password per line.
+ *
+ * <p>Usage: {@code BreachedPasswordIndexCompiler <input> <output> [falsePositiveRate]}
+ */
+public class BreachedPasswordIndexCompiler {
+
+    private static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BreachedPasswordIndexCompiler <input> <output> [falsePositiveRate]");
+            System.exit(1);
+        }
+
+        double falsePositiveRate = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_FALSE_POSITIVE_RATE;
+        long entries = compile(Path.of(args[0]), Path.of(args[1]), falsePositiveRate);
+        System.out.println("Compiled " + entries + " breached password hashes into " + args[1]);
+    }
+
+    public static long compile(Path input, Path output, double falsePositiveRate) throws IOException {
+        byte[][] hashes = readHashes(input);
+
+        // Sort as unsigned bytes to match the binary search in the index, then drop duplicates
+        Arrays.sort(hashes, Arrays::compareUnsigned);
+        int distinct = 0;
+        for (int i = 0; i < hashes.length; i++) {
+            if (distinct == 0 || !Arrays.equals(hashes[distinct - 1], hashes[i])) {
+                hashes[distinct++] = hashes[i];
+            }
+        }
+
+        // Size Bloom filter for the requested false positive rate: m = -n ln p / (ln 2)^2, k = m / n ln 2
+        long n = Math.max(distinct, 1);
+        long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        bits = Math.max(64, (bits + 63) / 64 * 64);
+        int hashFunctions = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+
+        long[] bloom = new long[(int) (bits / 64)];
+        for (int i = 0; i < distinct; i++) {
+            for (int k = 0; k < hashFunctions; k++) {
+                long bit = bitIndex(hashes[i], k, bits);
+                bloom[(int) (bit >>> 6)] |= 1L << (bit & 63);
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(output), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(distinct);
+            out.writeLong(bits);
+            out.writeInt(hashFunctions);
+            out.writeInt(0);
+
+            // Bloom filter is written byte by byte in little-endian bit order, as read by the index
+            for (long word : bloom) {
+                for (int b = 0; b < 8; b++) {
+                    out.writeByte((int) (word >>> (b * 8)));
+                }
+            }
+
+            for (int i = 0; i < distinct; i++) {
+                out.write(hashes[i]);
+            }
+        }
+
+        return distinct;
+    }
+
+    private static byte[][] readHashes(Path input) throws IOException {
+        if (input.getFileName().toString().endsWith(".json")) {
+            try (InputStream in = Files.newInputStream(input)) {
+                List<String> passwords = new ObjectMapper().readValue(in, PasswordListDTO.class).getPasswords();
+                return passwords.stream().map(MappedBreachedPasswordIndex::hash).toArray(byte[][]::new);
+            }
+        }
+
+        List<byte[]> hashes = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    hashes.add(hash(line));
+                }
+            }
+        }
+        return hashes.toArray(byte[][]::new);
+    }
+}
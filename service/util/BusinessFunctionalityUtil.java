@@ -1,13 +1,25 @@
 package account.service.util;
 
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import account.model.Payments;
+
+import java.time.Month;
 import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 public class BusinessFunctionalityUtil {
 
+    public static final int INVALID_PERIOD = -1;
+
+    private static final String[] MONTH_NAMES = Arrays.stream(Month.values())
+            .map(month -> month.getDisplayName(TextStyle.FULL, Locale.ENGLISH))
+            .toArray(String[]::new);
+
     // Get dollars and cents in correct form based on provided cents
     public static String convertSalaryToString(long salaryLong) {
         long dollars = salaryLong / 100;
@@ -17,14 +29,13 @@ public class BusinessFunctionalityUtil {
 
     // Convert period in "MM-yyyy" format to "MonthName-yyyy"
     public static String convertPeriodToMonthName(String period) {
-        // Convert "MM-yyyy" format to LocalDate object
-        LocalDate date = LocalDate.parse("01-" + period, DateTimeFormatter.ofPattern("dd-MM-yyyy"));
-
-        // Get month in alphabetic format from LocalDate object
-        String monthName = date.getMonth().getDisplayName(TextStyle.FULL, Locale.ENGLISH);
+        return convertPeriodKeyToMonthName(toPeriodKey(period));
+    }
 
+    // Convert integer yyyyMM period key to "MonthName-yyyy"
+    public static String convertPeriodKeyToMonthName(int key) {
         // Return expected period format
-        return monthName + "-" + date.getYear(); // e.g., February-2021
+        return MONTH_NAMES[key % 100 - 1] + "-" + key / 100; // e.g., February-2021
     }
 
     // Populates StringBuilder with error messages insuring correct format and separation
@@ -40,15 +51,139 @@ public class BusinessFunctionalityUtil {
 
     // Checks if date is in invalid format
     public static boolean isInvalidDate(String date) {
-        try {
-            // Tries parsing date to LocalDate object
-            LocalDate.parse("01-" + date, DateTimeFormatter.ofPattern("dd-MM-yyyy"));
+        return parsePeriodKey(date) == INVALID_PERIOD;
+    }
+
+    // Encode period in "MM-yyyy" format as sortable integer yyyyMM, e.g. "02-2021" -> 202102
+    // Returns INVALID_PERIOD instead of throwing, so it can be used for validation
+    public static int parsePeriodKey(String period) {
+        if (period == null || period.length() != 7 || period.charAt(2) != '-') {
+            return INVALID_PERIOD;
+        }
+
+        int month = parseDigits(period, 0, 2);
+        int year = parseDigits(period, 3, 7);
+        if (month < 1 || month > 12 || year < 1) {
+            return INVALID_PERIOD;
+        }
+        return year * 100 + month;
+    }
+
+    // Same as parsePeriodKey but rejects invalid periods with an exception
+    public static int toPeriodKey(String period) {
+        int key = parsePeriodKey(period);
+        if (key == INVALID_PERIOD) {
+            throw new IllegalArgumentException("Invalid period: " + period);
+        }
+        return key;
+    }
+
+    // Decode integer yyyyMM key back to "MM-yyyy" format used by the API
+    public static String toPeriodString(int key) {
+        int month = key % 100;
+        int year = key / 100;
+
+        StringBuilder builder = new StringBuilder(7);
+        if (month < 10) {
+            builder.append('0');
+        }
+        builder.append(month).append('-');
+        for (int padding = 1000; padding > 1 && year < padding; padding /= 10) {
+            builder.append('0');
+        }
+        return builder.append(year).toString();
+    }
+
+    // Returns -1 if any character in the range isn't a digit
+    private static int parseDigits(String value, int from, int to) {
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    // Key identifying payment of an employee in a period
+    public static String paymentKey(Payments payment) {
+        return payment.getEmployee() + "-" + payment.getPeriod();
+    }
+
+    // Key identifying stored payment of a user in a period, periods have at most 6 digits
+    public static long paymentKey(long userId, int periodKey) {
+        return userId * 1_000_000L + periodKey;
+    }
+
+    // Set userId of every payment whose employee email belongs to a user, others keep 0
+    public static void assignUserIds(List<Payments> payments, Map<String, Long> userIds) {
+        for (Payments payment : payments) {
+            Long userId = userIds.get(payment.getEmployee());
+            payment.setUserId(userId == null ? 0 : userId);
+        }
+    }
+
+    // Prefix of error messages describing a payment
+    public static String describePayment(Payments payment) {
+        return "(Employee: " + payment.getEmployee() + ", period: " + payment.getPeriod()
+                + ", salary: " + convertSalaryToString(payment.getSalary()) + "): ";
+    }
+
+    // Validate uploaded payment, returns list of error messages which is empty for valid payment
+    // Expects userId to be assigned already, 0 meaning the employee doesn't exist
+    // seenKeys collects keys of already validated payments to detect duplicates in the request body
+    // existingPayments holds user and period keys of payments already stored
+    public static List<String> validatePayment(Payments payment, Set<String> seenKeys, Set<Long> existingPayments) {
+        List<String> errors = new ArrayList<>(0);
+
+        // Check if salary is negative
+        if (payment.getSalary() <= 0) {
+            errors.add("Salary can't be negative");
+        }
+
+        // Check if data format is correct
+        int periodKey = parsePeriodKey(payment.getPeriod());
+        if (periodKey == INVALID_PERIOD) {
+            errors.add("Date format is wrong");
+        }
+
+        // Check for duplicates in the request body
+        if (!seenKeys.add(paymentKey(payment))) {
+            errors.add("Duplicate payment in the request body");
+        }
+
+        // Check if user is present in the database
+        if (payment.getUserId() == 0) {
+            errors.add("User is not present in the database");
+        }
+
+        // Check if payment already exists in the database for the same period
+        if (payment.getUserId() != 0 && periodKey != INVALID_PERIOD
+                && existingPayments.contains(paymentKey(payment.getUserId(), periodKey))) {
+            errors.add("Payment was already allocated");
+        }
+
+        return errors;
+    }
+
+    // Validate all payments of an upload, returns the error messages of every invalid payment
+    // joined into one text, which is empty if all payments are valid
+    // Expects userIds to be assigned already, existingPayments as in validatePayment
+    public static String validatePayments(List<Payments> payments, Set<Long> existingPayments) {
+        StringBuilder errors = new StringBuilder();
+        Set<String> seenKeys = new HashSet<>();
+
+        for (Payments payment : payments) {
+            List<String> paymentErrors = validatePayment(payment, seenKeys, existingPayments);
 
-            // If no errors are thrown date is valid
-            return false;
-        } catch (DateTimeParseException e) {
-            // If error is thrown date is invalid
-            return true;
+            // Prepare error message prefix only for invalid payments
+            if (!paymentErrors.isEmpty()) {
+                String currentPayment = describePayment(payment);
+                paymentErrors.forEach(error -> appendStringBuilder(errors, currentPayment, error));
+            }
         }
+        return errors.toString();
     }
-}
\ No newline at end of file
+}
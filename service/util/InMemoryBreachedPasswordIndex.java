@@ -0,0 +1,36 @@
+package account.service.util;
+
+import account.model.DTO.PasswordListDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Set;
+
+// Index for small corpora shipped as passwords.json on the classpath
+// Used when no precompiled binary artifact is configured
+public class InMemoryBreachedPasswordIndex implements BreachedPasswordIndex {
+
+    private final Set<String> passwords;
+
+    public InMemoryBreachedPasswordIndex(Set<String> passwords) {
+        this.passwords = Set.copyOf(passwords);
+    }
+
+    public static InMemoryBreachedPasswordIndex fromClasspath(String resourceName) {
+        // Use ObjectMapper to map InputStream to PasswordListDTO class
+        try (InputStream inputStream = new ClassPathResource(resourceName).getInputStream()) {
+            PasswordListDTO list = new ObjectMapper().readValue(inputStream, PasswordListDTO.class);
+            return new InMemoryBreachedPasswordIndex(new HashSet<>(list.getPasswords()));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load breached passwords list");
+        }
+    }
+
+    @Override
+    public boolean contains(String password) {
+        return passwords.contains(password);
+    }
+}
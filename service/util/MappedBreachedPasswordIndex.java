@@ -0,0 +1,170 @@
+package account.service.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Index over a precompiled, memory-mapped breached passwords artifact.
+ * A Bloom filter answers most negative lookups with a handful of byte reads; positive
+ * answers are confirmed by binary search over the sorted SHA-1 hashes of the corpus.
+ * Both sections stay off-heap, so even 100M entries only cost a few objects of heap.
+ *
+ * <p>Artifact layout (big-endian), as written by {@link BreachedPasswordIndexCompiler}:
+ * <pre>
+ * int  magic           "BPI1"
+ * int  format version
+ * long entry count
+ * long Bloom filter size in bits (multiple of 64)
+ * int  number of hash functions
+ * int  reserved
+ * byte[bits / 8]       Bloom filter
+ * byte[count * 20]     sorted, distinct SHA-1 hashes
+ * </pre>
+ */
+public class MappedBreachedPasswordIndex implements BreachedPasswordIndex {
+
+    static final int MAGIC = 0x42504931;
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int HASH_SIZE = 20;
+    static final String HASH_ALGORITHM = "SHA-1";
+
+    // A single MappedByteBuffer is limited to 2GB, so larger sections are mapped in segments
+    private static final long BLOOM_SEGMENT_SIZE = 1L << 30;
+    private static final long HASHES_PER_SEGMENT = (1L << 30) / HASH_SIZE;
+
+    private final long entryCount;
+    private final long bloomBits;
+    private final int hashFunctions;
+    private final MappedByteBuffer[] bloomSegments;
+    private final MappedByteBuffer[] hashSegments;
+
+    private MappedBreachedPasswordIndex(long entryCount, long bloomBits, int hashFunctions,
+                                        MappedByteBuffer[] bloomSegments, MappedByteBuffer[] hashSegments) {
+        this.entryCount = entryCount;
+        this.bloomBits = bloomBits;
+        this.hashFunctions = hashFunctions;
+        this.bloomSegments = bloomSegments;
+        this.hashSegments = hashSegments;
+    }
+
+    public static MappedBreachedPasswordIndex open(Path artifact) throws IOException {
+        try (FileChannel channel = FileChannel.open(artifact, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Read until the whole header is loaded
+            }
+            header.flip();
+
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+                throw new IOException("Not a breached passwords index: " + artifact);
+            }
+            if (header.getInt() != FORMAT_VERSION) {
+                throw new IOException("Unsupported breached passwords index version: " + artifact);
+            }
+
+            long entryCount = header.getLong();
+            long bloomBits = header.getLong();
+            int hashFunctions = header.getInt();
+
+            long bloomBytes = bloomBits / 8;
+            long hashesOffset = HEADER_SIZE + bloomBytes;
+            if (channel.size() != hashesOffset + entryCount * HASH_SIZE) {
+                throw new IOException("Truncated breached passwords index: " + artifact);
+            }
+
+            // Mappings stay valid after the channel is closed
+            MappedByteBuffer[] bloomSegments = map(channel, HEADER_SIZE, bloomBytes, BLOOM_SEGMENT_SIZE);
+            MappedByteBuffer[] hashSegments = map(channel, hashesOffset, entryCount * HASH_SIZE, HASHES_PER_SEGMENT * HASH_SIZE);
+
+            return new MappedBreachedPasswordIndex(entryCount, bloomBits, hashFunctions, bloomSegments, hashSegments);
+        }
+    }
+
+    @Override
+    public boolean contains(String password) {
+        byte[] hash = hash(password);
+        return mightContain(hash) && binarySearch(hash);
+    }
+
+    public long size() {
+        return entryCount;
+    }
+
+    static byte[] hash(String password) {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM).digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(HASH_ALGORITHM + " is not available", e);
+        }
+    }
+
+    // Double hashing over the first 16 bytes of the SHA-1 hash gives all k bit positions
+    static long bitIndex(byte[] hash, int i, long bits) {
+        long h1 = ByteBuffer.wrap(hash, 0, 8).getLong();
+        long h2 = ByteBuffer.wrap(hash, 8, 8).getLong();
+        return Long.remainderUnsigned(h1 + i * h2, bits);
+    }
+
+    private boolean mightContain(byte[] hash) {
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = bitIndex(hash, i, bloomBits);
+            long byteOffset = bit >>> 3;
+            byte value = bloomSegments[(int) (byteOffset / BLOOM_SEGMENT_SIZE)].get((int) (byteOffset % BLOOM_SEGMENT_SIZE));
+            if ((value & (1 << (bit & 7))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean binarySearch(byte[] hash) {
+        long low = 0;
+        long high = entryCount - 1;
+
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            int cmp = compareAt(mid, hash);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Compares the stored hash at the given position with the searched one, as unsigned bytes
+    private int compareAt(long position, byte[] hash) {
+        MappedByteBuffer segment = hashSegments[(int) (position / HASHES_PER_SEGMENT)];
+        int offset = (int) (position % HASHES_PER_SEGMENT) * HASH_SIZE;
+
+        for (int i = 0; i < HASH_SIZE; i++) {
+            int cmp = Integer.compare(segment.get(offset + i) & 0xFF, hash[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    private static MappedByteBuffer[] map(FileChannel channel, long offset, long length, long segmentSize) throws IOException {
+        int count = (int) ((length + segmentSize - 1) / segmentSize);
+        MappedByteBuffer[] segments = new MappedByteBuffer[count];
+
+        for (int i = 0; i < count; i++) {
+            long start = i * segmentSize;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset + start, Math.min(segmentSize, length - start));
+        }
+        return segments;
+    }
+}
@@ -0,0 +1,37 @@
+package account.service.util;
+
+import account.exception.ExceptionWithBadRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+
+public class PaginationUtil {
+
+    // Response header carrying the cursor of the next page, absent on the last page
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    // Encode keyset position as an opaque URL-safe token
+    public static String encodeCursor(long position) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(position).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Decode token produced by encodeCursor, rejecting anything that was tampered with
+    public static long decodeCursor(String cursor) {
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new ExceptionWithBadRequest("Invalid cursor");
+        }
+    }
+
+    // Use requested page size if it's within bounds, else fall back to default one
+    public static int resolveLimit(Optional<Integer> limit, int defaultLimit, int maxLimit) {
+        int value = limit.orElse(defaultLimit);
+        if (value < 1 || value > maxLimit) {
+            throw new ExceptionWithBadRequest("Limit must be between 1 and " + maxLimit);
+        }
+        return value;
+    }
+}